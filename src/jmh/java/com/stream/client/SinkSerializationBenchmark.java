@@ -0,0 +1,95 @@
+package com.stream.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Record;
+import com.stream.client.infrastructure.adapter.http.SinkPayloadEncoder;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of sink payloads, a single {@link Record} and a 500-record batch: Jackson to a
+ * byte array, and the WebClient path into pooled buffers with Spring's Jackson encoder and with
+ * {@link SinkPayloadEncoder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SinkSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final NettyDataBufferFactory buffers = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private final Jackson2JsonEncoder jacksonEncoder = new Jackson2JsonEncoder(objectMapper);
+    private final SinkPayloadEncoder payloadEncoder = new SinkPayloadEncoder();
+
+    private Record record;
+    private List<Record> batch;
+    private ResolvableType recordType;
+    private ResolvableType batchType;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(3);
+        batch = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            batch.add(new Record(i % 2 == 0 ? "joined" : "orphaned", Id.ofHex(random.nextLong(), random.nextLong())));
+        }
+        record = batch.get(0);
+        recordType = ResolvableType.forClass(Record.class);
+        batchType = ResolvableType.forClassWithGenerics(List.class, Record.class);
+    }
+
+    @Benchmark
+    public byte[] jacksonRecord() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(record);
+    }
+
+    @Benchmark
+    public byte[] jacksonBatch() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(batch);
+    }
+
+    @Benchmark
+    public int jacksonEncoderRecord() {
+        return release(jacksonEncoder.encodeValue(record, buffers, recordType, null, Map.of()));
+    }
+
+    @Benchmark
+    public int jacksonEncoderBatch() {
+        return release(jacksonEncoder.encodeValue(batch, buffers, batchType, null, Map.of()));
+    }
+
+    @Benchmark
+    public int payloadEncoderRecord() {
+        return release(payloadEncoder.encodeValue(record, buffers, recordType, null, Map.of()));
+    }
+
+    @Benchmark
+    public int payloadEncoderBatch() {
+        return release(payloadEncoder.encodeValue(batch, buffers, batchType, null, Map.of()));
+    }
+
+    private static int release(DataBuffer buffer) {
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+}
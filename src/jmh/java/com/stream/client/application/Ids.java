@@ -0,0 +1,22 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+
+import java.util.Random;
+
+/**
+ * Fixture ids shaped like the fixture server's: 32 lowercase hex characters.
+ */
+final class Ids {
+
+    private Ids() {}
+
+    static Id[] random(int count, long seed) {
+        Random random = new Random(seed);
+        Id[] ids = new Id[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = Id.ofHex(random.nextLong(), random.nextLong());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,137 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Source;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Match-or-insert throughput with four threads, each alternating its offers between the sources:
+ * A inserts a fresh id, B follows {@code LAG} ids behind and joins it, except that one B offer in
+ * eight carries an id A never sends, so both sides leave orphans. Offers are stamped with a real
+ * millisecond clock and whichever thread finds the expiry interval elapsed flushes the orphans,
+ * so the throughput includes expiry: directly against each pending store, and through the sharded
+ * {@link JoinEngine} including the hop to the shard thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class JoinBenchmark {
+
+    private static final int IDS = 1 << 20;
+    private static final int LAG = 1 << 12;
+    // short enough that orphans expire long before a thread comes round to their id again
+    private static final long TIMEOUT_MS = 100;
+    private static final long TICK_MS = 10;
+    private static final long EXPIRY_INTERVAL_MS = 10;
+
+    @Param({"compact", "map"})
+    public String store;
+
+    private PendingStore pendingStore;
+    private Id[] ids;
+    // ids only B sends
+    private Id[] strays;
+    private long originNanos;
+    private final AtomicLong nextExpiry = new AtomicLong();
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        Source source = Source.B;
+        long expired;
+
+        @Setup
+        public void setUp() {
+            next = (int) (Thread.currentThread().threadId() * 7919);
+        }
+
+        /**
+         * Switches to the other source and returns the id it offers next.
+         */
+        Id advance(Id[] ids, Id[] strays) {
+            if (source == Source.B) {
+                source = Source.A;
+                return ids[next++ & (IDS - 1)];
+            }
+            source = Source.B;
+            int behind = (next - LAG) & (IDS - 1);
+            return (behind & 7) == 0 ? strays[behind] : ids[behind];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ids = Ids.random(IDS, 1);
+        strays = Ids.random(IDS, 2);
+        originNanos = System.nanoTime();
+        nextExpiry.set(EXPIRY_INTERVAL_MS);
+        pendingStore = store.equals("compact")
+                ? new CompactPendingStore(64, TIMEOUT_MS, TICK_MS, TIMEOUT_MS + EXPIRY_INTERVAL_MS, 0)
+                : new MapPendingStore(TIMEOUT_MS, TICK_MS, TIMEOUT_MS + EXPIRY_INTERVAL_MS, 0);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Engine {
+        JoinEngine joinEngine;
+        final AtomicLong nextExpiry = new AtomicLong();
+        long originNanos;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            PendingStoreFactory factory = new PendingStoreFactory("compact", 1, TIMEOUT_MS, 1, TICK_MS, 0, null);
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            joinEngine = new JoinEngine(factory, new StreamMetrics(registry), new LatencyTracker(registry), 4);
+            originNanos = System.nanoTime();
+            nextExpiry.set(EXPIRY_INTERVAL_MS);
+        }
+
+        // the shard threads would otherwise outlive the trial in the forked JVM
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            joinEngine.dispose();
+        }
+    }
+
+    @Benchmark
+    public long offer(Cursor cursor) {
+        long now = (System.nanoTime() - originNanos) / 1_000_000;
+        if (due(nextExpiry, now)) {
+            pendingStore.expire(now, (id, source, firstSeen) -> cursor.expired++);
+        }
+        Id id = cursor.advance(ids, strays);
+        return pendingStore.offer(id, cursor.source, now);
+    }
+
+    @Benchmark
+    public Object engineOffer(Engine engine, Cursor cursor) {
+        long now = (System.nanoTime() - engine.originNanos) / 1_000_000;
+        if (due(engine.nextExpiry, now)) {
+            cursor.expired += engine.joinEngine.expire().count().block();
+        }
+        Id id = cursor.advance(ids, strays);
+        return engine.joinEngine.offer(cursor.source, id).block();
+    }
+
+    /**
+     * @return whether the calling thread is the one to flush orphans at {@code now}
+     */
+    private static boolean due(AtomicLong nextExpiry, long now) {
+        long next = nextExpiry.get();
+        return now >= next && nextExpiry.compareAndSet(next, now + EXPIRY_INTERVAL_MS);
+    }
+}
@@ -0,0 +1,83 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Source;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One orphan flusher tick at 10k, 1M and 10M pending ids, spread evenly over the orphan timeout.
+ * Each tick expires one tick's worth of ids and re-inserts them as fresh, keeping the pending set
+ * at a steady size. {@code fullScan} is the stream-filter-collect pass flushExpired() used to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrphanExpiryBenchmark {
+
+    private static final long TIMEOUT_MS = 60_000;
+    private static final long TICK_MS = 100;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int pending;
+
+    @Param({"compact", "map", "fullScan"})
+    public String store;
+
+    private PendingStore pendingStore;
+    private Map<Id, Long> scanned;
+    private List<Id> expired;
+    private long now;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Id[] ids = Ids.random(pending, 7);
+        pendingStore = switch (store) {
+            case "compact" -> new CompactPendingStore(1, TIMEOUT_MS, TICK_MS, TIMEOUT_MS + 2_000, 0);
+            case "map" -> new MapPendingStore(TIMEOUT_MS, TICK_MS, TIMEOUT_MS + 2_000, 0);
+            default -> null;
+        };
+        scanned = new ConcurrentHashMap<>();
+        for (int i = 0; i < pending; i++) {
+            long firstSeen = i * TIMEOUT_MS / pending;
+            if (pendingStore != null) {
+                pendingStore.offer(ids[i], Source.A, firstSeen);
+            } else {
+                scanned.put(ids[i], firstSeen);
+            }
+        }
+        expired = new ArrayList<>();
+        now = TIMEOUT_MS;
+    }
+
+    @Benchmark
+    public int tick() {
+        now += TICK_MS;
+        expired.clear();
+        if (pendingStore != null) {
+            pendingStore.expire(now, (id, source, firstSeen) -> expired.add(id));
+            for (Id id : expired) pendingStore.offer(id, Source.A, now);
+        } else {
+            long cutoff = now;
+            scanned.entrySet().stream()
+                    .filter(e -> cutoff - e.getValue() >= TIMEOUT_MS)
+                    .map(Map.Entry::getKey)
+                    .forEach(expired::add);
+            for (Id id : expired) scanned.put(id, cutoff);
+        }
+        return expired.size();
+    }
+}
@@ -0,0 +1,86 @@
+package com.stream.client.infrastructure.parser;
+
+import com.stream.client.domain.model.SourceEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Id extraction for source A (JSON) and source B (XML): the byte parsers against the
+ * {@code contains}/{@code split} extraction StreamClientService used before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(SourceParsingBenchmark.RECORDS)
+public class SourceParsingBenchmark {
+
+    static final int RECORDS = 1024;
+
+    private final SourceAJsonParser jsonParser = new SourceAJsonParser();
+    private final SourceBXmlParser xmlParser = new SourceBXmlParser();
+
+    private String[] jsonLines;
+    private String[] xmlLines;
+    private byte[][] jsonBytes;
+    private byte[][] xmlBytes;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        jsonLines = new String[RECORDS];
+        xmlLines = new String[RECORDS];
+        jsonBytes = new byte[RECORDS][];
+        xmlBytes = new byte[RECORDS][];
+        for (int i = 0; i < RECORDS; i++) {
+            String id = String.format("%016x%016x", random.nextLong(), random.nextLong());
+            jsonLines[i] = "{\"status\": \"ok\", \"id\": \"" + id + "\"}";
+            xmlLines[i] = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><msg><id value=\"" + id + "\"/></msg>";
+            jsonBytes[i] = jsonLines[i].getBytes(StandardCharsets.UTF_8);
+            xmlBytes[i] = xmlLines[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public void sourceASplit(Blackhole blackhole) {
+        for (String line : jsonLines) {
+            if (line.contains("\"status\": \"ok\"")) {
+                blackhole.consume(line.split("\"id\": \"")[1].split("\"")[0]);
+            }
+        }
+    }
+
+    @Benchmark
+    public void sourceAParser(Blackhole blackhole) {
+        for (byte[] payload : jsonBytes) {
+            blackhole.consume(jsonParser.parse(payload));
+        }
+    }
+
+    @Benchmark
+    public void sourceBSplit(Blackhole blackhole) {
+        for (String line : xmlLines) {
+            if (!line.contains("<done/>")) {
+                blackhole.consume(line.split("value=\"")[1].split("\"")[0]);
+            }
+        }
+    }
+
+    @Benchmark
+    public void sourceBParser(Blackhole blackhole) {
+        for (byte[] payload : xmlBytes) {
+            SourceEvent event = xmlParser.parse(payload);
+            blackhole.consume(event);
+        }
+    }
+}
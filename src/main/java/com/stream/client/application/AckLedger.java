@@ -0,0 +1,123 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ids the sink has acknowledged, so a record is not submitted again once it went through, be it
+ * a dead letter replayed after a partial success or an id that turns up again after expiring.
+ * <p>
+ * Ids are kept in two generations, each an exact set (about 72 bytes per id) and a Bloom filter
+ * (ten bits per id for {@code ACK_LEDGER_BLOOM_SIZE / 2} ids, rounded up to a power of two). A
+ * generation is retired one orphan timeout plus one flush interval after it was started, so an
+ * acknowledged id is remembered for at least that long: a duplicate that goes back into the
+ * pending store after its id joined expires within that time and is then skipped. Memory follows
+ * the acknowledgement rate over one to two such spans.
+ * <p>
+ * The filter answers most lookups of new ids without touching the sets; only an exact hit
+ * suppresses a submission. A filter hit the sets do not confirm is a false positive, submitted
+ * and counted as a probable duplicate.
+ */
+@Component
+class AckLedger {
+
+    private static final int HASHES = 5;
+
+    private final StreamMetrics metrics;
+    private final long generationNanos;
+    private final int bloomMask;
+
+    private Set<Id> exact = new HashSet<>();
+    private Set<Id> previousExact = new HashSet<>();
+    private long[] bloom;
+    private long[] previousBloom;
+    private long generationStart = System.nanoTime();
+
+    AckLedger(StreamMetrics metrics,
+              @Value("${stream-client.orphan-timeout-ms}") long orphanTimeoutMs,
+              @Value("${stream-client.orphan-flusher-interval-seconds}") long orphanFlushIntervalSeconds,
+              @Value("${stream-client.ack-ledger-bloom-size}") long bloomSize) {
+        this.metrics = metrics;
+        this.generationNanos = TimeUnit.MILLISECONDS.toNanos(orphanTimeoutMs) + TimeUnit.SECONDS.toNanos(orphanFlushIntervalSeconds);
+        long bloomGenerationSize = Math.max(1, bloomSize / 2);
+        // ~10 bits per id keeps false positives around 1% with five hashes
+        int bits = (int) Math.min(1L << 30, Long.highestOneBit(Math.max(64, bloomGenerationSize * 10 - 1)) << 1);
+        this.bloomMask = bits - 1;
+        this.bloom = new long[bits / Long.SIZE];
+        this.previousBloom = new long[bits / Long.SIZE];
+    }
+
+    void acknowledged(List<Outbound> batch) {
+        acknowledged(batch, System.nanoTime());
+    }
+
+    synchronized void acknowledged(List<Outbound> batch, long nowNanos) {
+        if (nowNanos - generationStart >= generationNanos) rotate(nowNanos);
+        for (int i = 0, n = batch.size(); i < n; i++) {
+            Id id = batch.get(i).record().id();
+            exact.add(id);
+            long hash = id.hash();
+            for (int k = 0; k < HASHES; k++) {
+                int bit = bit(hash, k);
+                bloom[bit >>> 6] |= 1L << bit;
+            }
+        }
+    }
+
+    private void rotate(long nowNanos) {
+        previousExact = exact;
+        exact = new HashSet<>();
+        long[] recycled = previousBloom;
+        Arrays.fill(recycled, 0);
+        previousBloom = bloom;
+        bloom = recycled;
+        generationStart = nowNanos;
+    }
+
+    /**
+     * @return {@code batch} without the records the sink already acknowledged; {@code batch}
+     * itself when there are none
+     */
+    synchronized List<Outbound> unacknowledged(List<Outbound> batch) {
+        List<Outbound> fresh = null;
+        for (int i = 0, n = batch.size(); i < n; i++) {
+            Outbound outbound = batch.get(i);
+            boolean acknowledged = isAcknowledged(outbound.record().id());
+            if (acknowledged && fresh == null) fresh = new ArrayList<>(batch.subList(0, i));
+            if (!acknowledged && fresh != null) fresh.add(outbound);
+        }
+        return fresh == null ? batch : fresh;
+    }
+
+    private boolean isAcknowledged(Id id) {
+        long hash = id.hash();
+        if (!contains(bloom, hash) && !contains(previousBloom, hash)) return false;
+        if (exact.contains(id) || previousExact.contains(id)) {
+            metrics.ledgerSkipped();
+            return true;
+        }
+        metrics.ledgerProbableDuplicate();
+        return false;
+    }
+
+    private boolean contains(long[] filter, long hash) {
+        for (int k = 0; k < HASHES; k++) {
+            int bit = bit(hash, k);
+            if ((filter[bit >>> 6] & 1L << bit) == 0) return false;
+        }
+        return true;
+    }
+
+    private int bit(long hash, int k) {
+        // double hashing over the two halves of the hash
+        return ((int) hash + k * (int) (hash >>> 32)) & bloomMask;
+    }
+}
@@ -0,0 +1,373 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Record;
+import com.stream.client.domain.model.Source;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Persists the join state so a restarted client resumes with the pending set it had and the
+ * records it still owed the sink.
+ * <p>
+ * Generation {@code n} is a snapshot ({@code snapshot-n.bin}, written to a temporary file,
+ * synced and renamed into place) of every pending id followed by the records waiting for the
+ * sink in the dead letter and deferred queues, plus a write-ahead log of the ids the sink
+ * acknowledged since the snapshot began ({@code wal-n.log}). On start the newest snapshot is
+ * loaded minus the ids of its log and any later one, so ids matched or expired and submitted
+ * after the snapshot are neither resubmitted as orphans nor joined twice; its waiting records
+ * go to the dead letter queue for the next replay. Both files are read sequentially through a
+ * mapping.
+ * <p>
+ * A snapshot holds matching up only while each shard copies its pending ids into primitive
+ * arrays; encoding and writing them, hex ids as their two longs, happen off the shards.
+ * <p>
+ * On a graceful stop the engine drains its pipeline before the last snapshot, so every record
+ * read is pending, acknowledged or in one of the two queues. After a crash, records that were
+ * joined or expired but not yet acknowledged are lost as such: their ids come back as pending
+ * from the source that saw them first, or not at all if they were first seen after the
+ * snapshot. The log is written, not synced, per acknowledged batch: it survives a crash of the
+ * process, a power loss may cost the acknowledgements since the last snapshot.
+ */
+@Slf4j
+@Component
+class Checkpointer {
+
+    private static final int MAGIC = 0x53434b50;
+    private static final byte END = -1;
+    // pending entry tag: the source ordinal, flagged when the id follows as two longs
+    private static final int SOURCE_MASK = 0x1;
+    private static final int HEX_ID = 0x2;
+
+    private final JoinEngine joinEngine;
+    private final DeadLetterQueue deadLetters;
+    private final DeferredQueue deferredQueue;
+
+    @Value("${stream-client.checkpoint-enabled}")
+    protected boolean CHECKPOINT_ENABLED;
+
+    @Value("${stream-client.checkpoint-dir}")
+    protected String CHECKPOINT_DIR;
+
+    @Value("${stream-client.checkpoint-interval-seconds}")
+    protected long CHECKPOINT_INTERVAL_SECONDS;
+
+    private final Object walLock = new Object();
+    private Path directory;
+    private long generation;
+    private FileChannel wal;
+    private Disposable timer;
+
+    Checkpointer(JoinEngine joinEngine, DeadLetterQueue deadLetters, DeferredQueue deferredQueue) {
+        this.joinEngine = joinEngine;
+        this.deadLetters = deadLetters;
+        this.deferredQueue = deferredQueue;
+    }
+
+    boolean isEnabled() {
+        return CHECKPOINT_ENABLED;
+    }
+
+    /**
+     * Restore the last checkpoint, start a fresh generation and schedule the next ones.
+     */
+    @PostConstruct
+    void start() throws IOException {
+        if (!CHECKPOINT_ENABLED) return;
+        directory = Files.createDirectories(Path.of(CHECKPOINT_DIR));
+        restore();
+        writeSnapshot();
+
+        timer = Flux.interval(Duration.ofSeconds(CHECKPOINT_INTERVAL_SECONDS))
+                .onBackpressureDrop()
+                .concatMap(tick -> snapshot().onErrorResume(e -> {
+                    log.warn("Checkpoint failed: {}", e.getMessage());
+                    return Mono.empty();
+                }))
+                .subscribe();
+    }
+
+    /**
+     * Stop the snapshot timer, then sync and close the log. Runs after the engines' last
+     * snapshot, as they depend on this; acknowledgements that still come in are not logged.
+     */
+    @PreDestroy
+    void close() {
+        if (timer != null) timer.dispose();
+        // a snapshot under way holds this and would reopen the log
+        synchronized (this) {
+            synchronized (walLock) {
+                if (wal == null) return;
+                try {
+                    wal.force(true);
+                    wal.close();
+                } catch (IOException e) {
+                    log.warn("Cannot close the checkpoint log: {}", e.getMessage());
+                }
+                wal = null;
+            }
+        }
+    }
+
+    Mono<Void> snapshot() {
+        return Mono.<Void>fromRunnable(this::writeSnapshot).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Log acknowledged ids; from a sink response, so one write per batch. A failed write only
+     * costs the restart some duplicates, so it is logged rather than failing the response.
+     */
+    void acknowledged(List<Outbound> batch) {
+        if (!CHECKPOINT_ENABLED) return;
+        byte[][] ids = new byte[batch.size()][];
+        int size = 0;
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = batch.get(i).record().id().toString().getBytes(StandardCharsets.UTF_8);
+            size += Short.BYTES + ids[i].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (byte[] id : ids) {
+            buffer.putShort((short) id.length).put(id);
+        }
+        buffer.flip();
+        synchronized (walLock) {
+            // closed on shutdown
+            if (wal == null) return;
+            try {
+                while (buffer.hasRemaining()) wal.write(buffer);
+            } catch (IOException e) {
+                log.warn("Cannot append {} acknowledged ids to the checkpoint log: {}", ids.length, e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void writeSnapshot() {
+        long next = generation + 1;
+        long start = System.nanoTime();
+        try {
+            // acknowledgements from here on may concern ids in the snapshot, so they go to its log
+            synchronized (walLock) {
+                if (wal != null) wal.close();
+                wal = FileChannel.open(walOf(next), CREATE, WRITE, APPEND);
+            }
+
+            Path temporary = directory.resolve("snapshot-" + next + ".tmp");
+            long written = 0;
+            List<Outbound> waiting = new ArrayList<>(deadLetters.letters());
+            waiting.addAll(deferredQueue.parked());
+            try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                out.writeInt(MAGIC);
+                // shards only copy their entries, encoding and I/O happen on this thread
+                for (PendingCopy pending : joinEngine.copyPending(PendingCopy::new).toIterable(1)) {
+                    pending.writeTo(out);
+                    written += pending.size;
+                }
+                out.writeByte(END);
+                out.writeInt(waiting.size());
+                for (Outbound outbound : waiting) {
+                    writeString(out, outbound.record().kind());
+                    writeString(out, outbound.record().id().toString());
+                }
+                out.flush();
+                file.getChannel().force(true);
+            }
+            Files.move(temporary, snapshotOf(next), ATOMIC_MOVE);
+            generation = next;
+            deleteGenerationsBefore(next);
+            log.info("Checkpoint {} of {} pending ids and {} waiting records written in {} ms",
+                    next, written, waiting.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write checkpoint " + next, e);
+        }
+    }
+
+    private void restore() throws IOException {
+        long start = System.nanoTime();
+        long snapshot = -1;
+        long newest = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.startsWith("snapshot-") && name.endsWith(".bin")) {
+                    snapshot = Math.max(snapshot, generationOf(name));
+                }
+                if (name.startsWith("wal-") || name.startsWith("snapshot-")) {
+                    newest = Math.max(newest, generationOf(name));
+                }
+            }
+        }
+        generation = newest;
+        if (snapshot < 0) return;
+
+        // logs of the snapshot's generation and of any later one that was started before a crash
+        Set<Id> acknowledged = new HashSet<>();
+        for (long g = snapshot; g <= newest; g++) {
+            if (Files.exists(walOf(g))) readLog(walOf(g), acknowledged);
+        }
+
+        long restored = 0;
+        List<Outbound> waiting = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(snapshotOf(snapshot), READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) throw new IOException("Not a checkpoint: " + snapshotOf(snapshot));
+            Source[] sources = Source.values();
+            byte[] bytes = new byte[64];
+            for (byte tag; (tag = buffer.get()) != END; ) {
+                long firstSeen = buffer.getLong();
+                Id id;
+                if ((tag & HEX_ID) != 0) {
+                    id = Id.ofHex(buffer.getLong(), buffer.getLong());
+                } else {
+                    int length = buffer.getShort() & 0xFFFF;
+                    if (bytes.length < length) bytes = new byte[length];
+                    buffer.get(bytes, 0, length);
+                    id = Id.of(new String(bytes, 0, length, StandardCharsets.UTF_8));
+                }
+                if (acknowledged.contains(id)) continue;
+                joinEngine.restore(id, sources[tag & SOURCE_MASK], firstSeen);
+                restored++;
+            }
+            // absent from checkpoints written before waiting records were kept
+            int count = buffer.remaining() >= Integer.BYTES ? buffer.getInt() : 0;
+            long now = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                String kind = readString(buffer);
+                Id id = Id.of(readString(buffer));
+                if (!acknowledged.contains(id)) waiting.add(new Outbound(new Record(kind, id), now, now));
+            }
+        }
+        if (!waiting.isEmpty()) deadLetters.add(waiting);
+        log.info("Restored {} pending ids and {} waiting records from checkpoint {} ({} acknowledged since) in {} ms",
+                restored, waiting.size(), snapshot, acknowledged.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void readLog(Path path, Set<Id> ids) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] bytes = new byte[64];
+            while (buffer.remaining() >= Short.BYTES) {
+                int length = buffer.getShort() & 0xFFFF;
+                // a write torn by the crash
+                if (buffer.remaining() < length) break;
+                if (bytes.length < length) bytes = new byte[length];
+                buffer.get(bytes, 0, length);
+                ids.add(Id.of(new String(bytes, 0, length, StandardCharsets.UTF_8)));
+            }
+        }
+    }
+
+    /**
+     * The pending entries of one shard in primitive arrays, filled on the shard's thread and
+     * written from the checkpointer's; ids that are not hex are kept as they are.
+     */
+    private static final class PendingCopy implements PendingStore.EntryConsumer {
+
+        private byte[] tags = new byte[1024];
+        private long[] firstSeens = new long[1024];
+        // two longs per hex id, unused for the others
+        private long[] hexIds = new long[2048];
+        private final List<Id> otherIds = new ArrayList<>();
+        private int size;
+
+        @Override
+        public void accept(Id id, Source source, long firstSeen) {
+            if (size == tags.length) {
+                tags = Arrays.copyOf(tags, size << 1);
+                firstSeens = Arrays.copyOf(firstSeens, size << 1);
+                hexIds = Arrays.copyOf(hexIds, size << 2);
+            }
+            firstSeens[size] = firstSeen;
+            if (id.isHex()) {
+                tags[size] = (byte) (source.ordinal() | HEX_ID);
+                hexIds[size << 1] = id.hi();
+                hexIds[(size << 1) + 1] = id.lo();
+            } else {
+                tags[size] = (byte) source.ordinal();
+                otherIds.add(id);
+            }
+            size++;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            int other = 0;
+            for (int i = 0; i < size; i++) {
+                out.writeByte(tags[i]);
+                out.writeLong(firstSeens[i]);
+                if ((tags[i] & HEX_ID) != 0) {
+                    out.writeLong(hexIds[i << 1]);
+                    out.writeLong(hexIds[(i << 1) + 1]);
+                } else {
+                    writeString(out, otherIds.get(other++).toString());
+                }
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void deleteGenerationsBefore(long keep) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if ((name.startsWith("wal-") || name.startsWith("snapshot-")) && generationOf(name) < keep) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private Path snapshotOf(long generation) {
+        return directory.resolve("snapshot-" + generation + ".bin");
+    }
+
+    private Path walOf(long generation) {
+        return directory.resolve("wal-" + generation + ".log");
+    }
+
+    private static long generationOf(String name) {
+        return Long.parseLong(name.substring(name.indexOf('-') + 1, name.indexOf('.')));
+    }
+}
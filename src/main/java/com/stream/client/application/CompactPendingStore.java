@@ -0,0 +1,338 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Source;
+
+import java.util.Arrays;
+
+/**
+ * {@link PendingStore} for 32-character lowercase hex ids, kept in primitive arrays.
+ * <p>
+ * Each id's two longs ({@link Id#hi()}, {@link Id#lo()}) are stored in an open-addressing (linear
+ * probing) table next to a single int that holds the first-seen time (4ms precision, wrap-around
+ * arithmetic) and the source bit: 20 bytes per slot. Tables are rebuilt at a load of 0.875 to a
+ * load of 0.7, so a pending id costs 23 to 29 bytes of table.
+ * <p>
+ * Expiry is indexed by a timing wheel of int slot numbers, one growable array per tick, as in
+ * {@link OrphanExpiryWheel}: a flush reads only the slots of ticks that have timed out, and an
+ * id expires at most one tick late. A match leaves its slot number behind; a tick's array is
+ * compacted once a quarter of it is stale, so the index costs 4 bytes per pending id plus that
+ * slack and the arrays' growth headroom, 4 to 6 bytes in all. A rehash moves the entries and
+ * rebuilds the wheel.
+ * <p>
+ * The table is split into independently locked stripes. Ids that are not canonical hex hashes
+ * fall back to a {@link MapPendingStore}.
+ */
+class CompactPendingStore implements PendingStore {
+
+    private static final int EMPTY = 0;
+    private static final int TOMBSTONE = 1;
+    // set on every live entry so it can never collide with EMPTY or TOMBSTONE
+    private static final int LIVE = 2;
+    private static final int SOURCE_B = 1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final double MAX_LOAD = 0.875;
+    private static final double REHASH_LOAD = 0.7;
+    private static final int MIN_TICK_SLOTS = 16;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final long timeoutMs;
+    private final long tickMs;
+    private final int wheelSize;
+    private final MapPendingStore overflow;
+
+    /**
+     * @param stripes   number of independently locked tables, rounded up to a power of two
+     * @param tickMs    tick resolution of the expiry wheels, the fallback store's included
+     * @param horizonMs longest time an id may stay in a wheel before it is drained (timeout plus
+     *                  the flush interval)
+     * @param now       current time, used as the starting position of the wheels
+     */
+    CompactPendingStore(int stripes, long timeoutMs, long tickMs, long horizonMs, long now) {
+        if (tickMs <= 0) throw new IllegalArgumentException("tickMs must be positive");
+        int count = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Stripe[count];
+        this.stripeMask = count - 1;
+        this.timeoutMs = timeoutMs;
+        this.tickMs = tickMs;
+        this.wheelSize = (int) Math.min(Integer.MAX_VALUE - 8, horizonMs / tickMs + 2);
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(tickOf(now) - 1);
+        }
+        this.overflow = new MapPendingStore(timeoutMs, tickMs, horizonMs, now);
+    }
+
+    @Override
+    public long offer(Id id, Source source, long now) {
+        if (!id.isHex()) return overflow.offer(id, source, now);
+        long hi = id.hi();
+        long lo = id.lo();
+        long hash = id.hash();
+        return stripeOf(hash).offer(hi, lo, (int) hash, source == Source.B ? SOURCE_B : 0, now);
+    }
+
+    @Override
+    public void expire(long now, EntryConsumer expired) {
+        for (Stripe stripe : stripes) {
+            stripe.expire(now, expired);
+        }
+        overflow.expire(now, expired);
+    }
+
+    @Override
+    public void forEach(long now, EntryConsumer visitor) {
+        for (Stripe stripe : stripes) {
+            stripe.forEach(now, visitor);
+        }
+        overflow.forEach(now, visitor);
+    }
+
+    @Override
+    public void drain(long now, EntryConsumer removed) {
+        for (Stripe stripe : stripes) {
+            stripe.drain(now, removed);
+        }
+        overflow.drain(now, removed);
+    }
+
+    @Override
+    public int size() {
+        int size = overflow.size();
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private Stripe stripeOf(long hash) {
+        return stripes[(int) (hash >>> 32) & stripeMask];
+    }
+
+    private long tickOf(long time) {
+        return Math.floorDiv(time, tickMs);
+    }
+
+    private int wheelSlotOf(long tick) {
+        return (int) Math.floorMod(tick, (long) wheelSize);
+    }
+
+    private final class Stripe {
+
+        private long[] his;
+        private long[] los;
+        private int[] metas;
+        private int live;
+        // live entries plus tombstones
+        private int used;
+
+        // per wheel slot, the table slots first seen in its tick; null until one is
+        private int[][] ticks;
+        private int[] counts;
+        // per wheel slot, matches since it was last compacted
+        private int[] stale;
+        // last tick whose wheel slot has been drained
+        private long cursor;
+
+        Stripe(long cursor) {
+            this.cursor = cursor;
+            allocate(INITIAL_CAPACITY);
+        }
+
+        synchronized long offer(long hi, long lo, int hash, int sourceBit, long now) {
+            int slot = indexOf(hash);
+            int free = -1;
+            for (int meta; (meta = metas[slot]) != EMPTY; slot = next(slot)) {
+                if (meta == TOMBSTONE) {
+                    if (free < 0) free = slot;
+                } else if (his[slot] == hi && los[slot] == lo) {
+                    // same source duplicate → keep original timestamp
+                    if ((meta & SOURCE_B) == sourceBit) return DUPLICATE;
+                    // opposite source → matched
+                    metas[slot] = TOMBSTONE;
+                    live--;
+                    unschedule(firstSeen(meta, now), now);
+                    return now - age(meta, now);
+                }
+            }
+
+            if (free < 0) {
+                free = slot;
+                used++;
+            }
+            his[free] = hi;
+            los[free] = lo;
+            metas[free] = stamp(now, sourceBit);
+            live++;
+            if (used > metas.length * MAX_LOAD) {
+                rehash(now);
+            } else {
+                schedule(free, firstSeen(metas[free], now));
+            }
+            return PENDING;
+        }
+
+        synchronized void expire(long now, EntryConsumer expired) {
+            long dueTick = tickOf(now - timeoutMs) - 1;
+            long from = cursor + 1;
+            if (dueTick < from) return;
+
+            // after a full lap every wheel slot has been visited once
+            long to = Math.min(dueTick, from + wheelSize - 1);
+            cursor = dueTick;
+            for (long tick = from; tick <= to; tick++) {
+                int wheelSlot = wheelSlotOf(tick);
+                int[] slots = ticks[wheelSlot];
+                int count = counts[wheelSlot];
+                ticks[wheelSlot] = null;
+                counts[wheelSlot] = 0;
+                stale[wheelSlot] = 0;
+                for (int i = 0; i < count; i++) {
+                    int slot = slots[i];
+                    int meta = metas[slot];
+                    if (meta == EMPTY || meta == TOMBSTONE) continue; // already joined
+                    long age = age(meta, now);
+                    if (age >= timeoutMs) {
+                        metas[slot] = TOMBSTONE;
+                        live--;
+                        expired.accept(Id.ofHex(his[slot], los[slot]), sourceOf(meta), now - age);
+                    } else if (wheelSlotOf(tickOf(firstSeen(meta, now))) == wheelSlot) {
+                        // first seen a lap ahead of a late flush, wait for its own tick
+                        schedule(slot, firstSeen(meta, now));
+                    }
+                    // otherwise the slot was re-used after a join and the newer id has its own tick
+                }
+            }
+        }
+
+        synchronized void forEach(long now, EntryConsumer visitor) {
+            for (int slot = 0; slot < metas.length; slot++) {
+                int meta = metas[slot];
+                if (meta != EMPTY && meta != TOMBSTONE) {
+                    visitor.accept(Id.ofHex(his[slot], los[slot]), sourceOf(meta), now - age(meta, now));
+                }
+            }
+        }
+
+        synchronized void drain(long now, EntryConsumer removed) {
+            for (int slot = 0; slot < metas.length; slot++) {
+                int meta = metas[slot];
+                if (meta != EMPTY && meta != TOMBSTONE) {
+                    removed.accept(Id.ofHex(his[slot], los[slot]), sourceOf(meta), now - age(meta, now));
+                }
+            }
+            allocate(INITIAL_CAPACITY);
+        }
+
+        synchronized int size() {
+            return live;
+        }
+
+        /**
+         * Index a table slot by the time its id was first seen.
+         */
+        private void schedule(int slot, long firstSeen) {
+            // a back-dated id must not land in a wheel slot that was already drained
+            int wheelSlot = wheelSlotOf(Math.max(tickOf(firstSeen), cursor + 1));
+            int[] slots = ticks[wheelSlot];
+            int count = counts[wheelSlot];
+            if (slots == null) {
+                slots = ticks[wheelSlot] = new int[MIN_TICK_SLOTS];
+            } else if (count == slots.length) {
+                slots = ticks[wheelSlot] = Arrays.copyOf(slots, count + (count >>> 1));
+            }
+            slots[count] = slot;
+            counts[wheelSlot] = count + 1;
+        }
+
+        /**
+         * Count a joined id against its tick, compacting the tick once a quarter of it is stale.
+         */
+        private void unschedule(long firstSeen, long now) {
+            int wheelSlot = wheelSlotOf(Math.max(tickOf(firstSeen), cursor + 1));
+            int[] slots = ticks[wheelSlot];
+            int count = counts[wheelSlot];
+            if (slots == null || ++stale[wheelSlot] < MIN_TICK_SLOTS || stale[wheelSlot] * 4L < count) return;
+
+            // the tick this wheel slot holds until it is drained
+            long tick = cursor + 1 + Math.floorMod(wheelSlot - wheelSlotOf(cursor + 1), wheelSize);
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int slot = slots[i];
+                int meta = metas[slot];
+                if (meta == EMPTY || meta == TOMBSTONE) continue;
+                long seenTick = tickOf(firstSeen(meta, now));
+                // an id of a later tick re-used the slot after a join and is indexed there
+                if (seenTick <= tick || wheelSlotOf(seenTick) == wheelSlot) slots[kept++] = slot;
+            }
+            counts[wheelSlot] = kept;
+            stale[wheelSlot] = 0;
+            if (kept < slots.length >>> 2 && slots.length > MIN_TICK_SLOTS) {
+                ticks[wheelSlot] = Arrays.copyOf(slots, Math.max(MIN_TICK_SLOTS, kept << 1));
+            }
+        }
+
+        /**
+         * Re-insert live entries into a table sized for a load of {@link #REHASH_LOAD},
+         * dropping tombstones, and index them again as their slots changed.
+         */
+        private void rehash(long now) {
+            long[] oldHis = his;
+            long[] oldLos = los;
+            int[] oldMetas = metas;
+            int count = live;
+            allocate(Math.max(INITIAL_CAPACITY, (int) Math.min(Integer.MAX_VALUE - 8, (long) (count / REHASH_LOAD) + 1)));
+
+            for (int old = 0; old < oldMetas.length; old++) {
+                int meta = oldMetas[old];
+                if (meta == EMPTY || meta == TOMBSTONE) continue;
+                int slot = indexOf((int) Id.hash(oldHis[old], oldLos[old]));
+                while (metas[slot] != EMPTY) slot = next(slot);
+                his[slot] = oldHis[old];
+                los[slot] = oldLos[old];
+                metas[slot] = meta;
+                schedule(slot, firstSeen(meta, now));
+            }
+            live = count;
+            used = count;
+        }
+
+        private void allocate(int capacity) {
+            his = new long[capacity];
+            los = new long[capacity];
+            metas = new int[capacity];
+            ticks = new int[wheelSize][];
+            counts = new int[wheelSize];
+            stale = new int[wheelSize];
+            live = 0;
+            used = 0;
+        }
+
+        private int indexOf(int hash) {
+            // maps the hash onto [0, capacity) without requiring a power-of-two capacity
+            return (int) (((hash & 0xFFFFFFFFL) * metas.length) >>> 32);
+        }
+
+        private int next(int slot) {
+            return slot + 1 == metas.length ? 0 : slot + 1;
+        }
+    }
+
+    private static int stamp(long now, int sourceBit) {
+        return ((int) now & ~3) | LIVE | sourceBit;
+    }
+
+    private static long age(int meta, long now) {
+        return Math.max(0, (int) now - (meta & ~3));
+    }
+
+    // unlike now - age, later than now for an id offered after the caller's clock reading
+    private static long firstSeen(int meta, long now) {
+        return now - ((int) now - (meta & ~3));
+    }
+
+    private static Source sourceOf(int meta) {
+        return (meta & SOURCE_B) != 0 ? Source.B : Source.A;
+    }
+}
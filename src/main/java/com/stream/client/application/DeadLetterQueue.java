@@ -0,0 +1,68 @@
+package com.stream.client.application;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the sink still refused after the last retry, kept for a later replay instead of being
+ * dropped. Bounded: once full, the oldest letter makes room and is counted as lost.
+ */
+@Slf4j
+@Component
+class DeadLetterQueue {
+
+    private final StreamMetrics metrics;
+    private final int capacity;
+    private final ArrayDeque<Outbound> letters = new ArrayDeque<>();
+
+    DeadLetterQueue(StreamMetrics metrics, @Value("${stream-client.dead-letter-capacity}") int capacity) {
+        this.metrics = metrics;
+        this.capacity = capacity;
+    }
+
+    synchronized void add(List<Outbound> records) {
+        for (Outbound record : records) {
+            if (letters.size() >= capacity) {
+                Outbound lost = letters.pollFirst();
+                metrics.deadLetterLost();
+                log.warn("Dead letter queue full, dropping {} {}", lost.record().kind(), lost.record().id());
+            }
+            letters.addLast(record);
+        }
+        metrics.deadLettered(records.size());
+    }
+
+    /**
+     * Take every letter out for a replay.
+     */
+    synchronized List<Outbound> drain() {
+        List<Outbound> drained = new ArrayList<>(letters);
+        letters.clear();
+        return drained;
+    }
+
+    /**
+     * Take at most {@code max} of the oldest letters out for a replay.
+     */
+    synchronized List<Outbound> drain(int max) {
+        List<Outbound> drained = new ArrayList<>(Math.min(max, letters.size()));
+        while (drained.size() < max && !letters.isEmpty()) drained.add(letters.pollFirst());
+        return drained;
+    }
+
+    /**
+     * @return a copy of the letters, oldest first, left in the queue
+     */
+    synchronized List<Outbound> letters() {
+        return new ArrayList<>(letters);
+    }
+
+    synchronized int size() {
+        return letters.size();
+    }
+}
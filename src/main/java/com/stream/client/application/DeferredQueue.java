@@ -0,0 +1,131 @@
+package com.stream.client.application;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the sink answered 406 for, parked until the client has read from a source again.
+ * <p>
+ * Instead of retrying into the same answer with exponential sleeps, parked records are put back
+ * into the outbound stream, oldest first and one sink batch per record read, as either source
+ * delivers. A timer releases all of them anyway after {@code SINK_DEFERRED_MAX_PARK_MS} in case
+ * the sources have gone quiet. Once {@link #close() closed} nothing is released any more; what
+ * is parked then stays here for the shutdown to drain or checkpoint.
+ * <p>
+ * Bounded: a record deferred {@code SINK_DEFERRED_MAX_DEFERRALS} times, or parked while
+ * {@code SINK_DEFERRED_CAPACITY} others are, goes to the dead letter queue instead.
+ */
+@Slf4j
+@Component
+class DeferredQueue {
+
+    private final StreamMetrics metrics;
+    private final DeadLetterQueue deadLetters;
+    private final Sinks.Many<Outbound> released = Sinks.many().unicast().onBackpressureBuffer();
+    private final Sinks.Empty<Void> closed = Sinks.empty();
+    // oldest first
+    private final ArrayDeque<Outbound> parked = new ArrayDeque<>();
+    // read on every source record, so the common empty case costs no lock
+    private volatile boolean hasParked;
+    private boolean isClosed;
+
+    @Value("${stream-client.sink-deferred-max-park-ms}")
+    protected long SINK_DEFERRED_MAX_PARK_MS;
+
+    @Value("${stream-client.sink-deferred-capacity}")
+    protected int SINK_DEFERRED_CAPACITY;
+
+    @Value("${stream-client.sink-deferred-max-deferrals}")
+    protected int SINK_DEFERRED_MAX_DEFERRALS;
+
+    @Value("${stream-client.sink-batch-size}")
+    protected int SINK_BATCH_SIZE;
+
+    DeferredQueue(StreamMetrics metrics, DeadLetterQueue deadLetters) {
+        this.metrics = metrics;
+        this.deadLetters = deadLetters;
+    }
+
+    void park(List<Outbound> records) {
+        List<Outbound> refused = new ArrayList<>();
+        synchronized (this) {
+            for (Outbound record : records) {
+                if (record.deferrals() >= SINK_DEFERRED_MAX_DEFERRALS || parked.size() >= SINK_DEFERRED_CAPACITY) {
+                    refused.add(record);
+                } else {
+                    parked.addLast(record.deferred());
+                }
+            }
+            hasParked = !parked.isEmpty();
+        }
+        metrics.deferred(records.size() - refused.size());
+        if (!refused.isEmpty()) {
+            log.warn("Dead-lettering {} records deferred too often or beyond the deferred queue's capacity", refused.size());
+            deadLetters.add(refused);
+        }
+    }
+
+    /**
+     * A source delivered a record.
+     */
+    void sourceProgressed() {
+        if (hasParked) release(SINK_BATCH_SIZE);
+    }
+
+    /**
+     * @return parked records as they are released, for merging into the outbound stream;
+     * completes once the queue is closed and what was released before has been delivered
+     */
+    Flux<Outbound> released() {
+        Flux<Outbound> timer = Flux.interval(Duration.ofMillis(SINK_DEFERRED_MAX_PARK_MS))
+                .onBackpressureDrop()
+                .takeUntilOther(closed.asMono())
+                .handle((tick, sink) -> release(Integer.MAX_VALUE));
+        return Flux.merge(released.asFlux(), timer);
+    }
+
+    /**
+     * Stop releasing, for the shutdown; records parked from now on stay parked.
+     */
+    synchronized void close() {
+        isClosed = true;
+        released.tryEmitComplete();
+        closed.tryEmitEmpty();
+    }
+
+    /**
+     * Take every parked record out.
+     */
+    synchronized List<Outbound> drain() {
+        List<Outbound> drained = new ArrayList<>(parked);
+        parked.clear();
+        hasParked = false;
+        return drained;
+    }
+
+    /**
+     * @return a copy of the parked records, left parked
+     */
+    synchronized List<Outbound> parked() {
+        return new ArrayList<>(parked);
+    }
+
+    synchronized int size() {
+        return parked.size();
+    }
+
+    private synchronized void release(int max) {
+        if (!hasParked || isClosed) return;
+        // emissions are serialized by the lock
+        for (int i = 0; i < max && !parked.isEmpty(); i++) released.tryEmitNext(parked.pollFirst());
+        hasParked = !parked.isEmpty();
+    }
+}
@@ -0,0 +1,117 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Source;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the join state bounded when one source runs ahead of the other.
+ * <p>
+ * Once {@code MAX_PENDING_SIZE} ids are pending, work from the leading source (the one with more
+ * pending ids than the other, A on a tie) is held back until matches or orphan expiry bring the
+ * total below the watermark again. Exactly one source is held back at a time: the other one keeps
+ * reading, so its records can match and make room. Held-back work keeps its slot in the source's
+ * bounded {@code flatMap}, so demand towards the source dries up and polling stops on its own.
+ * <p>
+ * All held-back work of a source waits on one signal, completed by the join engine's thread
+ * whose change of the pending counts lets the source proceed; nothing polls while paused.
+ */
+@Slf4j
+@Component
+class FlowControl {
+
+    private final JoinEngine joinEngine;
+    private final StreamMetrics metrics;
+
+    // per paused source, completed once it may proceed; guarded by this
+    private final Map<Source, Sinks.Empty<Void>> resumed = new EnumMap<>(Source.class);
+    // read on every change of the pending counts, so the common unpaused case costs no lock
+    private volatile boolean waiting;
+    // set on shutdown, after which nothing is held back
+    private volatile boolean stopped;
+
+    @Value("${stream-client.max-pending-size}")
+    protected long MAX_PENDING_SIZE;
+
+    FlowControl(JoinEngine joinEngine, StreamMetrics metrics) {
+        this.joinEngine = joinEngine;
+        this.metrics = metrics;
+        joinEngine.onPendingChanged(this::pendingChanged);
+    }
+
+    /**
+     * @return {@code work} itself while the source may proceed, otherwise {@code work} deferred
+     * until the source no longer has to pause
+     */
+    <T> Mono<T> admit(Source source, Mono<T> work) {
+        if (!mustPause(source)) return work;
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            metrics.paused(source);
+            log.debug("Pausing source {} at {} pending ids", source, joinEngine.pending(source));
+            return resumption(source).doFinally(signal -> metrics.resumed(source, System.nanoTime() - start));
+        }).then(work);
+    }
+
+    boolean mustPause(Source source) {
+        if (stopped) return false;
+        long own = joinEngine.pending(source);
+        long other = joinEngine.pending(source == Source.A ? Source.B : Source.A);
+        if (own + other < MAX_PENDING_SIZE) return false;
+        // on a tie only A waits, pausing both would leave nothing to match
+        return own > other || (own == other && source == Source.A);
+    }
+
+    /**
+     * Let all held-back work proceed and hold nothing back from now on, so a stopping client can
+     * finish what it has read.
+     */
+    void stop() {
+        stopped = true;
+        waiting = true;
+        pendingChanged();
+    }
+
+    /**
+     * @return completes once {@code source} no longer has to pause
+     */
+    private Mono<Void> resumption(Source source) {
+        return Mono.defer(() -> {
+            Mono<Void> signal;
+            synchronized (this) {
+                // set before the check, so a change racing with it sees a waiter
+                waiting = true;
+                if (!mustPause(source)) return Mono.empty();
+                signal = resumed.computeIfAbsent(source, s -> Sinks.empty()).asMono();
+            }
+            // others may have taken the room first
+            return signal.then(Mono.defer(() -> resumption(source)));
+        });
+    }
+
+    private void pendingChanged() {
+        if (!waiting) return;
+        List<Sinks.Empty<Void>> proceed = new ArrayList<>(2);
+        synchronized (this) {
+            for (Iterator<Map.Entry<Source, Sinks.Empty<Void>>> it = resumed.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Source, Sinks.Empty<Void>> entry = it.next();
+                if (!mustPause(entry.getKey())) {
+                    proceed.add(entry.getValue());
+                    it.remove();
+                }
+            }
+            waiting = !resumed.isEmpty();
+        }
+        // outside the lock, the held-back work starts on this thread
+        for (Sinks.Empty<Void> signal : proceed) signal.tryEmitEmpty();
+    }
+}
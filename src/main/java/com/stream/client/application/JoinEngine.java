@@ -0,0 +1,248 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Record;
+import com.stream.client.domain.model.Source;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Join state split into shards by id hash.
+ * <p>
+ * Every shard owns a {@link PendingStore} and a single-threaded scheduler; match, insert and
+ * expiry for the ids of a shard all run on that thread, in submission order, so a store only
+ * ever sees one writer and shards proceed in parallel on separate cores.
+ * <p>
+ * Stores are fed a monotonic clock: the wall-clock time the engine started plus the
+ * {@link System#nanoTime()} elapsed since, so wall-clock adjustments neither expire nor revive
+ * pending ids while timestamps stay positive and comparable with checkpoints.
+ */
+@Slf4j
+@Component
+class JoinEngine {
+
+    private final Shard[] shards;
+    private final StreamMetrics metrics;
+    private final LatencyTracker latency;
+    private final long originNanos = System.nanoTime();
+    private final long originMillis = System.currentTimeMillis();
+    // pending ids per source, indexed by ordinal
+    private final LongAdder[] pending = {new LongAdder(), new LongAdder()};
+    private volatile Runnable pendingListener = () -> { };
+
+    JoinEngine(PendingStoreFactory pendingStoreFactory,
+               StreamMetrics metrics,
+               LatencyTracker latency,
+               @Value("${stream-client.join-shards}") int shardCount) {
+        this.metrics = metrics;
+        this.latency = latency;
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        long now = millis();
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(pendingStoreFactory.create(now), Schedulers.newSingle("join-shard-" + i));
+        }
+        log.info("Join engine running {} shards", count);
+    }
+
+    /**
+     * Match-or-insert on the id's shard.
+     *
+     * @return the joined record, or empty when the id is now (or already was) pending
+     */
+    Mono<Outbound> offer(Source source, Id id) {
+        Shard shard = shards[shardOf(id)];
+        return shard.submit(() -> shard.offer(source, id));
+    }
+
+    /**
+     * Expire timed out ids, each shard on its own thread.
+     */
+    Flux<Outbound> expire() {
+        return Flux.fromArray(shards)
+                .flatMap(shard -> shard.submit(shard::expire))
+                .flatMapIterable(expired -> expired);
+    }
+
+    /**
+     * Copy the pending ids of every shard, without removing them, into a fresh {@code copy}
+     * filled on the shard's own thread, with first-seen times as epoch milliseconds. Copies are
+     * emitted one shard at a time from that thread: hand them to another one before working on
+     * them, as a blocking iterable does.
+     */
+    <T extends PendingStore.EntryConsumer> Flux<T> copyPending(Supplier<T> copy) {
+        return Flux.fromArray(shards)
+                .concatMap(shard -> Mono.fromCallable(() -> {
+                            T entries = copy.get();
+                            long now = millis();
+                            long toEpoch = System.currentTimeMillis() - now;
+                            shard.store.forEach(now, (id, source, firstSeen) -> entries.accept(id, source, firstSeen + toEpoch));
+                            return entries;
+                        })
+                        .subscribeOn(shard.scheduler));
+    }
+
+    /**
+     * Put an id read from a checkpoint back into its shard; only before streaming starts.
+     * The time spent down counts towards its age.
+     */
+    void restore(Id id, Source source, long firstSeenEpochMs) {
+        long now = millis();
+        long firstSeen = now - Math.max(0, System.currentTimeMillis() - firstSeenEpochMs);
+        if (shards[shardOf(id)].store.offer(id, source, firstSeen) == PendingStore.PENDING) {
+            pending[source.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Remove everything still pending, each shard on its own thread; used on shutdown.
+     */
+    List<Outbound> drain() {
+        return Flux.fromArray(shards)
+                .concatMap(shard -> shard.submit(shard::drain))
+                .flatMapIterable(remaining -> remaining)
+                .collectList()
+                .block();
+    }
+
+    /**
+     * Stop the shard threads, which are not daemons; work submitted afterwards is rejected.
+     */
+    @PreDestroy
+    void dispose() {
+        for (Shard shard : shards) {
+            shard.scheduler.dispose();
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.store.size();
+        }
+        return size;
+    }
+
+    /**
+     * Ids pending from {@code source}; exact once the shards are idle, approximate under load.
+     */
+    long pending(Source source) {
+        return pending[source.ordinal()].sum();
+    }
+
+    /**
+     * Have {@code listener} run after every change of the pending counts, on the thread that
+     * made it; it must return quickly.
+     */
+    void onPendingChanged(Runnable listener) {
+        this.pendingListener = listener;
+    }
+
+    int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Tasks submitted to a shard and not started yet.
+     */
+    int queueDepth(int shard) {
+        return shards[shard].queued.get();
+    }
+
+    private int shardOf(Id id) {
+        return Math.floorMod(id.hashCode(), shards.length);
+    }
+
+    private long millis() {
+        return originMillis + (System.nanoTime() - originNanos) / 1_000_000;
+    }
+
+    private long nanosOf(long millis) {
+        return originNanos + (millis - originMillis) * 1_000_000;
+    }
+
+    private Outbound orphan(Id id, Source source, long firstSeen) {
+        pending[source.ordinal()].decrement();
+        pendingListener.run();
+        metrics.orphaned();
+        return new Outbound(new Record("orphaned", id), nanosOf(firstSeen), System.nanoTime());
+    }
+
+    private final class Shard {
+
+        private final PendingStore store;
+        private final Scheduler scheduler;
+        private final AtomicInteger queued = new AtomicInteger();
+
+        Shard(PendingStore store, Scheduler scheduler) {
+            this.store = store;
+            this.scheduler = scheduler;
+        }
+
+        /**
+         * Run {@code task} on this shard's thread. It counts as queued from subscription until it
+         * starts or, cancelled or rejected before that, until the subscription ends.
+         */
+        <T> Mono<T> submit(Callable<T> task) {
+            return Mono.defer(() -> {
+                queued.incrementAndGet();
+                AtomicBoolean waiting = new AtomicBoolean(true);
+                Runnable dequeued = () -> {
+                    if (waiting.compareAndSet(true, false)) queued.decrementAndGet();
+                };
+                return Mono.fromCallable(() -> {
+                            dequeued.run();
+                            return task.call();
+                        })
+                        .subscribeOn(scheduler)
+                        .doFinally(signal -> dequeued.run());
+            });
+        }
+
+        Outbound offer(Source source, Id id) {
+            long firstSeen = store.offer(id, source, millis());
+            if (firstSeen >= 0) {
+                pending[source == Source.A ? Source.B.ordinal() : Source.A.ordinal()].decrement();
+                pendingListener.run();
+                long matched = System.nanoTime();
+                long firstSeenNanos = nanosOf(firstSeen);
+                metrics.joined();
+                latency.matched(firstSeenNanos, matched);
+                return new Outbound(new Record("joined", id), firstSeenNanos, matched);
+            }
+            if (firstSeen == PendingStore.PENDING) {
+                pending[source.ordinal()].increment();
+                pendingListener.run();
+            } else {
+                metrics.duplicate(source);
+            }
+            return null;
+        }
+
+        List<Outbound> expire() {
+            List<Outbound> expired = new ArrayList<>();
+            store.expire(millis(), (id, source, firstSeen) -> expired.add(orphan(id, source, firstSeen)));
+            return expired;
+        }
+
+        List<Outbound> drain() {
+            List<Outbound> remaining = new ArrayList<>();
+            store.drain(millis(), (id, source, firstSeen) -> remaining.add(orphan(id, source, firstSeen)));
+            return remaining;
+        }
+    }
+}
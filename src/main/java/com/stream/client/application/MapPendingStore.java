@@ -0,0 +1,75 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Source;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link PendingStore} on a {@link ConcurrentHashMap}, with an {@link OrphanExpiryWheel} as expiry
+ * index. Accepts any id; costs roughly 100+ bytes per pending entry.
+ */
+class MapPendingStore implements PendingStore {
+
+    private record Entry(Source source, long firstSeen) {}
+
+    private final Map<Id, Entry> entries = new ConcurrentHashMap<>();
+    private final OrphanExpiryWheel<Id> expiryWheel;
+    private final long timeoutMs;
+
+    MapPendingStore(long timeoutMs, long tickMs, long horizonMs, long now) {
+        this.timeoutMs = timeoutMs;
+        this.expiryWheel = new OrphanExpiryWheel<>(tickMs, timeoutMs, horizonMs, now);
+    }
+
+    @Override
+    public long offer(Id id, Source source, long now) {
+        Entry created = new Entry(source, now);
+        while (true) {
+            Entry existing = entries.putIfAbsent(id, created);
+            if (existing == null) {
+                expiryWheel.schedule(id, now);
+                return PENDING;
+            }
+            // same source duplicate → keep original timestamp
+            if (existing.source == source) return DUPLICATE;
+            // opposite source → matched
+            if (entries.remove(id, existing)) return existing.firstSeen;
+            // lost a race with another match or expiry, look again
+        }
+    }
+
+    @Override
+    public void expire(long now, EntryConsumer expired) {
+        expiryWheel.advance(now, id -> {
+            Entry entry = entries.get(id);
+            if (entry == null) return; // already joined
+            if (now - entry.firstSeen >= timeoutMs) {
+                if (entries.remove(id, entry)) expired.accept(id, entry.source, entry.firstSeen);
+            } else {
+                // re-inserted after an earlier join, wait for the newer sighting to expire
+                expiryWheel.schedule(id, entry.firstSeen);
+            }
+        });
+    }
+
+    @Override
+    public void forEach(long now, EntryConsumer visitor) {
+        entries.forEach((id, entry) -> visitor.accept(id, entry.source, entry.firstSeen));
+    }
+
+    @Override
+    public void drain(long now, EntryConsumer removed) {
+        for (Id id : entries.keySet()) {
+            Entry entry = entries.remove(id);
+            if (entry != null) removed.accept(id, entry.source, entry.firstSeen);
+        }
+        expiryWheel.clear();
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+}
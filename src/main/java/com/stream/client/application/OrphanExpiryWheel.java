@@ -0,0 +1,88 @@
+package com.stream.client.application;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Timing wheel used as an expiry index for pending ids.
+ * <p>
+ * Every id is appended to the slot of the tick in which it was first seen. A slot is only
+ * drained once its whole tick has outlived the timeout, so each advance touches just the
+ * ids that are actually due instead of scanning everything that is still pending.
+ * Precision is bounded by the tick resolution: an id expires at most one tick late.
+ * <p>
+ * Scheduling is safe from any thread; advancing is expected from a single flusher at a time.
+ */
+class OrphanExpiryWheel<K> {
+
+    private final long tickMs;
+    private final long timeoutMs;
+    private final AtomicReferenceArray<Queue<K>> slots;
+
+    // last tick whose slot has been drained
+    private volatile long cursor;
+
+    /**
+     * @param tickMs    tick resolution in milliseconds
+     * @param timeoutMs time after which a scheduled key becomes due
+     * @param horizonMs longest time a key may stay in the wheel before it is drained
+     *                  (timeout plus the flush interval)
+     * @param now       current time, used as the starting position of the wheel
+     */
+    OrphanExpiryWheel(long tickMs, long timeoutMs, long horizonMs, long now) {
+        if (tickMs <= 0) throw new IllegalArgumentException("tickMs must be positive");
+        this.tickMs = tickMs;
+        this.timeoutMs = timeoutMs;
+        int size = (int) Math.min(Integer.MAX_VALUE - 8, horizonMs / tickMs + 2);
+        this.slots = new AtomicReferenceArray<>(size);
+        for (int i = 0; i < size; i++) {
+            slots.set(i, new ConcurrentLinkedQueue<>());
+        }
+        this.cursor = tickOf(now) - 1;
+    }
+
+    /**
+     * Index a key by the time it was first seen.
+     */
+    void schedule(K key, long timestamp) {
+        // a late or back-dated key must not land in a slot that was already drained
+        long tick = Math.max(tickOf(timestamp), cursor + 1);
+        slots.get(slotOf(tick)).add(key);
+    }
+
+    /**
+     * Hand every key whose slot is due to {@code due}. Keys are only a hint: the caller
+     * re-checks its own state and may re-{@link #schedule} keys that are not expired yet.
+     */
+    synchronized void advance(long now, Consumer<K> due) {
+        long dueTick = tickOf(now - timeoutMs) - 1;
+        long from = cursor + 1;
+        if (dueTick < from) return;
+
+        // after a full lap every slot has been visited once
+        long to = Math.min(dueTick, from + slots.length() - 1);
+        cursor = dueTick;
+        for (long tick = from; tick <= to; tick++) {
+            Queue<K> drained = slots.getAndSet(slotOf(tick), new ConcurrentLinkedQueue<>());
+            for (K key; (key = drained.poll()) != null; ) {
+                due.accept(key);
+            }
+        }
+    }
+
+    synchronized void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    private long tickOf(long time) {
+        return Math.floorDiv(time, tickMs);
+    }
+
+    private int slotOf(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.length());
+    }
+}
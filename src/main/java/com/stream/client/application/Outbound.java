@@ -0,0 +1,22 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Record;
+
+/**
+ * A record on its way to the sink, with the {@link System#nanoTime()} at which its id was first
+ * seen and at which it was resolved (matched, or expired as an orphan), and how many times the
+ * sink has deferred it so far.
+ */
+record Outbound(Record record, long firstSeenNanos, long resolvedNanos, int deferrals) {
+
+    Outbound(Record record, long firstSeenNanos, long resolvedNanos) {
+        this(record, firstSeenNanos, resolvedNanos, 0);
+    }
+
+    /**
+     * @return this record, deferred once more
+     */
+    Outbound deferred() {
+        return new Outbound(record, firstSeenNanos, resolvedNanos, deferrals + 1);
+    }
+}
@@ -0,0 +1,47 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Source;
+
+/**
+ * Ids seen from one source and still waiting for their counterpart from the other.
+ * Implementations are thread-safe.
+ */
+interface PendingStore {
+
+    /** {@link #offer} result: the id is now pending. */
+    long PENDING = -1;
+
+    /** {@link #offer} result: the id was already pending from the same source. */
+    long DUPLICATE = -2;
+
+    /**
+     * Atomically match-or-insert: if the id is pending from the other source it is removed and
+     * the time it was first seen is returned (always {@code >= 0}); otherwise it is stored and
+     * {@link #PENDING} or {@link #DUPLICATE} is returned. A duplicate keeps its original time.
+     */
+    long offer(Id id, Source source, long now);
+
+    /**
+     * Remove every id that has been pending for at least the orphan timeout and hand it to
+     * {@code expired}.
+     */
+    void expire(long now, EntryConsumer expired);
+
+    /**
+     * Hand every pending id to {@code visitor} without removing it.
+     */
+    void forEach(long now, EntryConsumer visitor);
+
+    /**
+     * Remove every pending id, handing each to {@code removed}.
+     */
+    void drain(long now, EntryConsumer removed);
+
+    int size();
+
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(Id id, Source source, long firstSeen);
+    }
+}
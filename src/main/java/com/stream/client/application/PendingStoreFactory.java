@@ -0,0 +1,123 @@
+package com.stream.client.application;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Builds the configured {@link PendingStore}: {@code compact} (primitive arrays, for hex ids),
+ * {@code map} (ConcurrentHashMap, any id) or {@code tiered} (compact, spilling to disk after the
+ * hot window).
+ * <p>
+ * Tiered stores spill to their own {@code pending-*} directory under the spill dir. Those are
+ * deleted when the context closes; the ones a killed process left behind are deleted before
+ * the first new one is created, so the spill dir must not be shared by two running clients.
+ */
+@Slf4j
+@Component
+class PendingStoreFactory {
+
+    private static final String SPILL_PREFIX = "pending-";
+
+    private final String pendingStore;
+    private final int stripes;
+    private final long orphanTimeoutMs;
+    private final long orphanFlushIntervalSeconds;
+    private final long wheelTickMs;
+    private final long hotMs;
+    private final String spillDir;
+
+    // spill directories created by this factory, guarded by this
+    private final List<Path> spillDirectories = new ArrayList<>();
+
+    PendingStoreFactory(@Value("${stream-client.pending-store}") String pendingStore,
+                        @Value("${stream-client.pending-store-stripes}") int stripes,
+                        @Value("${stream-client.orphan-timeout-ms}") long orphanTimeoutMs,
+                        @Value("${stream-client.orphan-flusher-interval-seconds}") long orphanFlushIntervalSeconds,
+                        @Value("${stream-client.orphan-wheel-tick-ms}") long wheelTickMs,
+                        @Value("${stream-client.pending-store-hot-ms}") long hotMs,
+                        @Value("${stream-client.pending-store-spill-dir}") String spillDir) {
+        this.pendingStore = pendingStore;
+        this.stripes = stripes;
+        this.orphanTimeoutMs = orphanTimeoutMs;
+        this.orphanFlushIntervalSeconds = orphanFlushIntervalSeconds;
+        this.wheelTickMs = wheelTickMs;
+        this.hotMs = hotMs;
+        this.spillDir = spillDir;
+    }
+
+    PendingStore create(long now) {
+        // entries stay indexed for at most the timeout plus one flusher period
+        long horizonMs = orphanTimeoutMs + Duration.ofSeconds(orphanFlushIntervalSeconds).toMillis();
+        // wheels start one timeout back so ids restored from a checkpoint land in their own tick
+        long start = now - orphanTimeoutMs;
+        return switch (pendingStore) {
+            case "compact" -> new CompactPendingStore(stripes, orphanTimeoutMs, wheelTickMs, horizonMs, start);
+            case "map" -> new MapPendingStore(orphanTimeoutMs, wheelTickMs, horizonMs, start);
+            case "tiered" -> tiered(now);
+            default -> throw new IllegalArgumentException("Unknown stream-client.pending-store: " + pendingStore);
+        };
+    }
+
+    private synchronized PendingStore tiered(long now) {
+        if (hotMs >= orphanTimeoutMs) {
+            throw new IllegalArgumentException("stream-client.pending-store-hot-ms must be below the orphan timeout");
+        }
+        long hotHorizonMs = hotMs + Duration.ofSeconds(orphanFlushIntervalSeconds).toMillis();
+        PendingStore hot = new CompactPendingStore(stripes, hotMs, wheelTickMs, hotHorizonMs, now - hotMs);
+        try {
+            Path base = Files.createDirectories(Path.of(spillDir));
+            if (spillDirectories.isEmpty()) deleteStale(base);
+            Path directory = Files.createTempDirectory(base, SPILL_PREFIX);
+            spillDirectories.add(directory);
+            // a segment per 1/16 of the timeout bounds how late a cold id expires
+            long segmentSpanMs = Math.max(wheelTickMs, orphanTimeoutMs / 16);
+            return new TieredPendingStore(hot, directory, orphanTimeoutMs, segmentSpanMs);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create spill directory under " + spillDir, e);
+        }
+    }
+
+    @PreDestroy
+    synchronized void deleteSpillDirectories() {
+        for (Path directory : spillDirectories) {
+            try {
+                deleteRecursively(directory);
+            } catch (IOException | UncheckedIOException e) {
+                log.warn("Cannot delete spill directory {}", directory, e);
+            }
+        }
+        spillDirectories.clear();
+    }
+
+    private static void deleteStale(Path base) throws IOException {
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(base, SPILL_PREFIX + "*")) {
+            for (Path directory : stale) {
+                log.info("Deleting spill directory {} left by a previous run", directory);
+                deleteRecursively(directory);
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) return;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            // children before their parent
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.port.SinkBatchRefusedException;
+import com.stream.client.domain.port.SinkDeferredException;
+import com.stream.client.domain.port.SinkPayloadTooLargeException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Stops calling a sink that keeps failing, so retries do not pile onto a server that is down.
+ * <p>
+ * Closed, every call goes through and its outcome lands in a window of the last calls; a failure
+ * or a call slower than {@code slowCallMs} counts as bad. Once the window holds enough calls and
+ * the bad share reaches {@code failureRate}, the breaker opens: calls fail at once with
+ * {@link SinkUnavailableException} for {@code openMs}. After that it is half-open and lets
+ * {@code probes} calls through; if they all succeed it closes, a single bad one opens it again.
+ * A 406 or a refused or oversized batch is a sink that answers, and counts as good.
+ */
+@Slf4j
+@Component
+class SinkCircuitBreaker {
+
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final int minimumCalls;
+    private final double failureRate;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int probes;
+
+    // outcomes of the last calls, true for bad
+    private final boolean[] window;
+    private int next;
+    private int recorded;
+    private int bad;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    SinkCircuitBreaker(@Value("${stream-client.sink-circuit-window}") int window,
+                       @Value("${stream-client.sink-circuit-minimum-calls}") int minimumCalls,
+                       @Value("${stream-client.sink-circuit-failure-rate}") double failureRate,
+                       @Value("${stream-client.sink-circuit-slow-call-ms}") long slowCallMs,
+                       @Value("${stream-client.sink-circuit-open-ms}") long openMs,
+                       @Value("${stream-client.sink-circuit-probes}") int probes) {
+        this.window = new boolean[window];
+        this.minimumCalls = Math.min(minimumCalls, window);
+        this.failureRate = failureRate;
+        this.slowCallNanos = slowCallMs * 1_000_000;
+        this.openNanos = openMs * 1_000_000;
+        this.probes = probes;
+    }
+
+    /**
+     * @return {@code call}, failing with {@link SinkUnavailableException} without subscribing to
+     * it while the breaker is open
+     */
+    <T> Mono<T> protect(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) return Mono.error(new SinkUnavailableException("Sink circuit is open"));
+            long start = System.nanoTime();
+            return call
+                    .doOnSuccess(value -> record(System.nanoTime() - start >= slowCallNanos))
+                    .doOnError(e -> record(isFailure(e)))
+                    .doOnCancel(this::cancelled);
+        });
+    }
+
+    /**
+     * Blocking counterpart of {@link #protect(Mono)}, run on the calling thread.
+     *
+     * @throws SinkUnavailableException without running {@code call} while the breaker is open
+     */
+    void protect(BlockingCall call) throws InterruptedException {
+        if (!tryAcquire()) throw new SinkUnavailableException("Sink circuit is open");
+        long start = System.nanoTime();
+        try {
+            call.run();
+        } catch (InterruptedException e) {
+            cancelled();
+            throw e;
+        } catch (RuntimeException e) {
+            record(isFailure(e));
+            throw e;
+        }
+        record(System.nanoTime() - start >= slowCallNanos);
+    }
+
+    synchronized State state() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            probesStarted = 0;
+            probesSucceeded = 0;
+            log.info("Sink circuit half-open, probing with {} calls", probes);
+        }
+        return state;
+    }
+
+    private synchronized boolean tryAcquire() {
+        return switch (state()) {
+            case CLOSED -> true;
+            case HALF_OPEN -> {
+                if (probesStarted == probes) yield false;
+                probesStarted++;
+                yield true;
+            }
+            case OPEN -> false;
+        };
+    }
+
+    private synchronized void record(boolean failed) {
+        switch (state) {
+            case CLOSED -> {
+                if (recorded == window.length) {
+                    if (window[next]) bad--;
+                } else {
+                    recorded++;
+                }
+                window[next] = failed;
+                if (failed) bad++;
+                next = (next + 1) % window.length;
+                if (recorded >= minimumCalls && bad >= failureRate * recorded) {
+                    open(String.format("%d of the last %d calls failed or were slow", bad, recorded));
+                }
+            }
+            case HALF_OPEN -> {
+                if (failed) {
+                    open("a probe failed");
+                } else if (++probesSucceeded == probes) {
+                    state = State.CLOSED;
+                    next = 0;
+                    recorded = 0;
+                    bad = 0;
+                    log.info("Sink circuit closed after {} successful probes", probes);
+                }
+            }
+            // a call started before the breaker opened
+            case OPEN -> { }
+        }
+    }
+
+    private synchronized void cancelled() {
+        // a probe that never finished leaves its place to another one
+        if (state == State.HALF_OPEN && probesStarted > probesSucceeded) probesStarted--;
+    }
+
+    private static boolean isFailure(Throwable e) {
+        return !(e instanceof SinkDeferredException)
+                && !(e instanceof SinkBatchRefusedException)
+                && !(e instanceof SinkPayloadTooLargeException);
+    }
+
+    private void open(String reason) {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        log.warn("Sink circuit open for {} ms: {}", openNanos / 1_000_000, reason);
+    }
+
+    @FunctionalInterface
+    interface BlockingCall {
+        void run() throws InterruptedException;
+    }
+}
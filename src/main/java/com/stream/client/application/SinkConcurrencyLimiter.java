@@ -0,0 +1,173 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.port.SinkBatchRefusedException;
+import com.stream.client.domain.port.SinkDeferredException;
+import com.stream.client.domain.port.SinkPayloadTooLargeException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency-driven limit on concurrent sink calls, after TCP Vegas.
+ * <p>
+ * The lowest round trip seen stands for an idle sink. Every completed call estimates how many
+ * calls are queueing at the sink, {@code limit * (1 - rttNoLoad / rtt)}: while that stays small
+ * the limit grows, once it passes a threshold the limit shrinks, and a failed call cuts it by
+ * a tenth. The idle round trip is re-measured every few hundred samples so the limit can
+ * follow a sink that became slower for good. Calls over the limit wait in line, which holds
+ * their slot in the bounded sink {@code flatMap} and so pushes back on the sources.
+ */
+@Component
+class SinkConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    // waiting calls, granted in arrival order
+    private final ArrayDeque<Slot> waiters = new ArrayDeque<>();
+    // System.nanoTime, a fake one in tests
+    LongSupplier clock = System::nanoTime;
+    private double limit;
+    private int inFlight;
+    private long rttNoLoad;
+    private int samplesToProbe = nextProbe();
+
+    SinkConcurrencyLimiter(@Value("${stream-client.sink-limit-initial}") int initialLimit,
+                           @Value("${stream-client.sink-limit-min}") int minLimit,
+                           @Value("${stream-client.sink-max-in-flight}") int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Run {@code call} once a slot is free and feed its round trip back into the limit. The slot
+     * is given back exactly once, however the call ends, including a cancel while it waits or
+     * between getting the slot and starting.
+     */
+    <T> Mono<T> limit(Mono<T> call) {
+        return Mono.defer(() -> {
+            Slot slot = new Slot();
+            return acquire(slot)
+                    .then(Mono.defer(() -> {
+                        long start = clock.getAsLong();
+                        return call
+                                .doOnSuccess(value -> release(slot, clock.getAsLong() - start, false))
+                                .doOnError(e -> {
+                                    // a 406, a refused or oversized batch or an open circuit says nothing about load
+                                    boolean neutral = e instanceof SinkDeferredException || e instanceof SinkBatchRefusedException
+                                            || e instanceof SinkPayloadTooLargeException || e instanceof SinkUnavailableException;
+                                    release(slot, neutral ? -1 : clock.getAsLong() - start, !neutral);
+                                });
+                    }))
+                    .doFinally(signal -> release(slot, -1, false));
+        });
+    }
+
+    synchronized int currentLimit() {
+        return (int) limit;
+    }
+
+    synchronized int waiting() {
+        return waiters.size();
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    synchronized long rttNoLoadNanos() {
+        return rttNoLoad;
+    }
+
+    private Mono<Void> acquire(Slot slot) {
+        return Mono.create(sink -> {
+            synchronized (this) {
+                if (inFlight < (int) limit) {
+                    inFlight++;
+                    slot.granted = true;
+                } else {
+                    slot.waiter = sink;
+                    waiters.addLast(slot);
+                    return;
+                }
+            }
+            sink.success();
+        });
+    }
+
+    /**
+     * Give the slot back, or leave the line; only the first call per slot counts.
+     *
+     * @param rtt     round trip in nanoseconds, or -1 when the call tells nothing about load
+     * @param dropped the call failed
+     */
+    private void release(Slot slot, long rtt, boolean dropped) {
+        List<MonoSink<Void>> granted = new ArrayList<>(0);
+        synchronized (this) {
+            if (slot.done) return;
+            slot.done = true;
+            if (!slot.granted) {
+                waiters.remove(slot);
+                return;
+            }
+            int sampledInFlight = inFlight--;
+            if (rtt >= 0) update(rtt, sampledInFlight, dropped);
+            while (inFlight < (int) limit && !waiters.isEmpty()) {
+                Slot next = waiters.pollFirst();
+                next.granted = true;
+                inFlight++;
+                granted.add(next.waiter);
+            }
+        }
+        // outside the lock, the granted calls start right away on this thread; one cancelled
+        // meanwhile gives its slot back through its own release
+        for (MonoSink<Void> waiter : granted) waiter.success();
+    }
+
+    private void update(long rtt, int sampledInFlight, boolean dropped) {
+        if (--samplesToProbe <= 0) {
+            rttNoLoad = rtt;
+            samplesToProbe = nextProbe();
+        } else if (rttNoLoad == 0 || rtt < rttNoLoad) {
+            rttNoLoad = rtt;
+        }
+
+        double next = limit;
+        if (dropped) {
+            next = limit * 0.9;
+        } else if (sampledInFlight * 2 >= limit) {
+            // only a limit that is actually used is worth growing
+            double log = Math.max(1, Math.log10(limit));
+            double queue = Math.ceil(limit * (1 - (double) rttNoLoad / rtt));
+            if (queue <= log) {
+                next = limit + 6 * log;
+            } else if (queue < 3 * log) {
+                next = limit + log;
+            } else if (queue > 6 * log) {
+                next = limit - log;
+            }
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    private static int nextProbe() {
+        return 500 + ThreadLocalRandom.current().nextInt(500);
+    }
+
+    /**
+     * One call's claim on a slot; fields guarded by the limiter.
+     */
+    private static final class Slot {
+        MonoSink<Void> waiter;
+        boolean granted;
+        boolean done;
+    }
+}
@@ -0,0 +1,11 @@
+package com.stream.client.application;
+
+/**
+ * A sink call not attempted because {@link SinkCircuitBreaker} is open.
+ */
+class SinkUnavailableException extends RuntimeException {
+
+    SinkUnavailableException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -1,32 +1,53 @@
 package com.stream.client.application;
 
+import com.stream.client.domain.model.Id;
 import com.stream.client.domain.model.Record;
+import com.stream.client.domain.model.Source;
+import com.stream.client.domain.model.SourceEvent;
+import com.stream.client.domain.port.SinkBatchRefusedException;
+import com.stream.client.domain.port.SinkDeferredException;
+import com.stream.client.domain.port.SinkPayloadTooLargeException;
 import com.stream.client.domain.port.SinkPort;
 import com.stream.client.domain.port.SourcePort;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.util.retry.Retry;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Value;
 
 @Slf4j
 @Service
+@ConditionalOnProperty(name = "stream-client.engine", havingValue = "reactive", matchIfMissing = true)
 public class StreamClientService {
 
     private final SourcePort sourceA;
     private final SourcePort sourceB;
     private final SinkPort sink;
+    private final JoinEngine joinEngine;
+    private final StreamMetrics metrics;
+    private final LatencyTracker latency;
+    private final FlowControl flowControl;
+    private final Checkpointer checkpointer;
+    private final AckLedger ackLedger;
+    private final DeadLetterQueue deadLetters;
+    private final DeferredQueue deferredQueue;
+    private final SinkConcurrencyLimiter limiter;
+    private final SinkCircuitBreaker breaker;
 
-    @Value("${stream-client.orphan-timeout-ms}")
-    protected long ORPHAN_TIMEOUT_MS;
+    // completed on shutdown to end every input of the pipeline
+    private final Sinks.Empty<Void> stopping = Sinks.empty();
+    // completed once the pipeline has sent, dead-lettered or parked all it had
+    private final Sinks.Empty<Void> finished = Sinks.empty();
 
     @Value("${stream-client.orphan-flusher-interval-seconds}")
     protected long ORPHAN_FLUSH_INTERVAL_SECONDS;
@@ -37,140 +58,275 @@ public class StreamClientService {
     @Value("${stream-client.sink-retry-backoff-ms}")
     protected long SINK_RETRY_BACKOFF_MS;
 
+    @Value("${stream-client.sink-batch-size}")
+    protected int SINK_BATCH_SIZE;
+
+    @Value("${stream-client.sink-batch-max-delay-ms}")
+    protected long SINK_BATCH_MAX_DELAY_MS;
+
+    @Value("${stream-client.sink-max-in-flight}")
+    protected int SINK_MAX_IN_FLIGHT;
+
+    @Value("${stream-client.join-max-in-flight}")
+    protected int JOIN_MAX_IN_FLIGHT;
+
+    @Value("${stream-client.dead-letter-replay-interval-seconds}")
+    protected long DEAD_LETTER_REPLAY_INTERVAL_SECONDS;
+
     public StreamClientService(@Qualifier("sourceAAdapter") SourcePort sourceA,
                                @Qualifier("sourceBAdapter") SourcePort sourceB,
-                               SinkPort sink) {
+                               SinkPort sink,
+                               JoinEngine joinEngine,
+                               StreamMetrics metrics,
+                               LatencyTracker latency,
+                               FlowControl flowControl,
+                               Checkpointer checkpointer,
+                               AckLedger ackLedger,
+                               DeadLetterQueue deadLetters,
+                               DeferredQueue deferredQueue,
+                               SinkConcurrencyLimiter limiter,
+                               SinkCircuitBreaker breaker) {
         this.sourceA = sourceA;
         this.sourceB = sourceB;
         this.sink = sink;
+        this.joinEngine = joinEngine;
+        this.metrics = metrics;
+        this.latency = latency;
+        this.flowControl = flowControl;
+        this.checkpointer = checkpointer;
+        this.ackLedger = ackLedger;
+        this.deadLetters = deadLetters;
+        this.deferredQueue = deferredQueue;
+        this.limiter = limiter;
+        this.breaker = breaker;
     }
 
-    // Unified pending map: ID → (source, timestamp)
-    private final Map<String, PendingEntry> pendingMap = new ConcurrentHashMap<>();
-
-    private record PendingEntry(String source, long timestamp) {}
-
     @PostConstruct
     public void start() {
         log.info("Starting improved reactive streaming client");
+        metrics.bind(joinEngine);
+        metrics.bind(deadLetters);
+        metrics.bind(deferredQueue);
+        metrics.bind(limiter);
+        metrics.bind(breaker);
 
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            flushAllPending().blockLast(Duration.ofSeconds(10));
-        }));
-
-        Flux.merge(streamA(), streamB(), orphanFlusher())
+        // joined and orphaned records are grouped by size or time before hitting the sink;
+        // with every sink slot busy, demand stops here and propagates back to the sources.
+        // Each attempt then waits for the adaptive limit, SINK_MAX_IN_FLIGHT being its ceiling, and
+        // only then passes the circuit breaker, so time spent in line never counts as a slow call
+        Flux.merge(streamA(), streamB(), orphanFlusher(), deadLetterReplay(), deferredQueue.released())
+                .bufferTimeout(SINK_BATCH_SIZE, Duration.ofMillis(SINK_BATCH_MAX_DELAY_MS), true)
+                .flatMap(batch -> metrics.trackSinkInFlight(sendBatch(batch), SINK_MAX_IN_FLIGHT), SINK_MAX_IN_FLIGHT)
                 .subscribe(
                         null,
-                        e -> log.error("Stream error: {}", e.getMessage()),
-                        () -> log.info("Streaming finished and all pending records flushed")
+                        e -> {
+                            log.error("Stream error: {}", e.getMessage());
+                            finished.tryEmitEmpty();
+                        },
+                        () -> {
+                            log.info("Streaming finished and all pending records flushed");
+                            finished.tryEmitEmpty();
+                        }
                 );
     }
 
-    protected Flux<Void> streamA() {
+    /**
+     * Runs when the context closes, before the join engine it depends on stops its shard threads.
+     * <p>
+     * Reading stops first and what was read runs through to the sink, so that afterwards every
+     * record is either acknowledged, pending, dead-lettered or parked; only then are the queues
+     * given a last attempt and the rest checkpointed or flushed.
+     */
+    @PreDestroy
+    public void stop() {
+        stopping.tryEmitEmpty();
+        flowControl.stop();
+        deferredQueue.close();
+        finished.asMono()
+                .timeout(Duration.ofSeconds(10), Mono.fromRunnable(() -> log.warn("Pipeline still busy after 10 s, stopping anyway")))
+                .block();
+
+        // a last attempt for what the sink refused so far
+        List<Outbound> waiting = new ArrayList<>(deadLetters.drain());
+        waiting.addAll(deferredQueue.drain());
+        Flux.fromIterable(waiting)
+                .buffer(SINK_BATCH_SIZE)
+                .flatMap(this::sendBatch, SINK_MAX_IN_FLIGHT)
+                .blockLast(Duration.ofSeconds(10));
+        // with a checkpoint, pending ids survive the restart instead of being sent as orphans
+        if (checkpointer.isEnabled()) {
+            checkpointer.snapshot().block(Duration.ofSeconds(10));
+            return;
+        }
+        flushAllPending()
+                .buffer(SINK_BATCH_SIZE)
+                .flatMap(this::sendBatch, SINK_MAX_IN_FLIGHT)
+                .blockLast(Duration.ofSeconds(10));
+    }
+
+    protected Flux<Outbound> streamA() {
         return sourceA.streamRecords()
-                .flatMap(line -> {
-                    try {
-                        if (line.contains("\"status\": \"ok\"")) {
-                            String id = line.split("\"id\": \"")[1].split("\"")[0];
-                            return handleIncoming("A", id);
-                        }
-                    } catch (Exception e) {
-                        log.warn("Malformed A record: {}", line);
-                    }
-                    return Flux.empty();
-                });
+                .takeUntilOther(stopping.asMono())
+                .flatMap(event -> flowControl.admit(Source.A, handleEvent(Source.A, event)), JOIN_MAX_IN_FLIGHT);
     }
 
-    protected Flux<Void> streamB() {
+    protected Flux<Outbound> streamB() {
         return sourceB.streamRecords()
-                .flatMap(line -> {
-                    try {
-                        if (!line.contains("<done/>")) {
-                            String id = line.split("value=\"")[1].split("\"")[0];
-                            return handleIncoming("B", id);
-                        }
-                    } catch (Exception e) {
-                        log.warn("Malformed B record: {}", line);
-                    }
-                    return Flux.empty();
-                });
+                .takeUntilOther(stopping.asMono())
+                .flatMap(event -> flowControl.admit(Source.B, handleEvent(Source.B, event)), JOIN_MAX_IN_FLIGHT);
     }
 
     /**
-     * Atomically handle a record — if opposite source exists, send joined; otherwise store.
+     * @return the joined record to submit, if any
      */
-    private Flux<Void> handleIncoming(String source, String id) {
-        return Flux.defer(() -> {
-            boolean shouldSendJoined = pendingMap.compute(id, (key, existing) -> {
-                if (existing == null) {
-                    // store as pending
-                    return new PendingEntry(source, System.currentTimeMillis());
-                }
-                // if opposite, remove and send joined
-                if (!existing.source.equals(source)) {
-                    return null;
-                }
-                // same source duplicate → keep original timestamp
-                return existing;
-            }) == null; // null return means we matched and removed
-
-            return shouldSendJoined ? sendJoinedFlux(id) : Flux.empty();
-        });
-    }
-
-    private Flux<Void> sendJoinedFlux(String id) {
-        return sink.sendRecord(new Record("joined", id))
-                .retryWhen(Retry.backoff(SINK_RETRY_MAX_ATTEMPTS, Duration.ofMillis(SINK_RETRY_BACKOFF_MS)))
-                .onErrorResume(e -> {
-                    log.warn("Failed to send joined {}: {}", id, e.getMessage());
-                    return Mono.empty();
+    private Mono<Outbound> handleEvent(Source source, SourceEvent event) {
+        return switch (event) {
+            case SourceEvent.Valid valid -> {
+                metrics.read(source);
+                deferredQueue.sourceProgressed();
+                yield handleIncoming(source, valid.id());
+            }
+            case SourceEvent.Defective defective -> {
+                metrics.read(source);
+                deferredQueue.sourceProgressed();
+                metrics.defective(source);
+                log.warn("Malformed {} record: {}", source, defective.reason());
+                yield Mono.empty();
+            }
+            case SourceEvent.Done done -> Mono.empty();
+            case SourceEvent.Exhausted exhausted -> Mono.empty();
+        };
+    }
+
+    /**
+     * Atomically handle a record — if opposite source exists, return joined; otherwise store.
+     */
+    private Mono<Outbound> handleIncoming(Source source, Id id) {
+        return joinEngine.offer(source, id);
+    }
+
+    /**
+     * Submit a batch, falling back to one post per record when the sink does not take batches
+     * and to two halves, each submitted the same way, when it finds the batch too large.
+     * Records the sink already acknowledged are left out; a 406 parks the records until the next
+     * source read, records still refused after the last retry or held back by an open sink
+     * circuit go to the dead letter queue.
+     */
+    private Flux<Void> sendBatch(List<Outbound> batch) {
+        List<Outbound> fresh = ackLedger.unacknowledged(batch);
+        if (fresh.isEmpty()) return Flux.empty();
+        if (fresh.size() == 1) return sendRecordFlux(fresh.get(0));
+
+        List<Record> records = new ArrayList<>(fresh.size());
+        for (Outbound outbound : fresh) records.add(outbound.record());
+        return metrics.timeSinkRequest(limiter.limit(breaker.protect(sink.sendBatch(records))).retryWhen(sinkRetry()))
+                .doOnSuccess(ok -> acknowledged(fresh))
+                .flux()
+                .onErrorResume(SinkBatchRefusedException.class, e -> {
+                    int accepted = e.accepted();
+                    if (accepted > 0) acknowledged(fresh.subList(0, accepted));
+                    return Flux.fromIterable(fresh.subList(accepted, fresh.size())).flatMap(this::sendRecordFlux);
                 })
-                .flux();
+                .onErrorResume(SinkPayloadTooLargeException.class, e -> {
+                    int half = fresh.size() / 2;
+                    return Flux.concat(sendBatch(fresh.subList(0, half)), sendBatch(fresh.subList(half, fresh.size())));
+                })
+                .onErrorResume(SinkDeferredException.class, e -> {
+                    deferredQueue.park(fresh);
+                    return Flux.empty();
+                })
+                .onErrorResume(SinkUnavailableException.class, e -> {
+                    shortCircuited(fresh);
+                    return Flux.empty();
+                })
+                .onErrorResume(e -> {
+                    log.warn("Failed to send batch of {} records, dead-lettering: {}", fresh.size(), e.getMessage());
+                    metrics.sinkFailed(fresh.size());
+                    deadLetters.add(fresh);
+                    return Flux.empty();
+                });
     }
 
-    private Flux<Void> sendOrphanFlux(String id) {
-        return sink.sendRecord(new Record("orphaned", id))
-                .retryWhen(Retry.backoff(SINK_RETRY_MAX_ATTEMPTS, Duration.ofMillis(SINK_RETRY_BACKOFF_MS)))
+    private Flux<Void> sendRecordFlux(Outbound outbound) {
+        Record record = outbound.record();
+        return metrics.timeSinkRequest(limiter.limit(breaker.protect(sink.sendRecord(record))).retryWhen(sinkRetry()))
+                .doOnSuccess(ok -> acknowledged(List.of(outbound)))
+                .onErrorResume(SinkDeferredException.class, e -> {
+                    deferredQueue.park(List.of(outbound));
+                    return Mono.empty();
+                })
+                .onErrorResume(SinkUnavailableException.class, e -> {
+                    shortCircuited(List.of(outbound));
+                    return Mono.empty();
+                })
                 .onErrorResume(e -> {
-                    log.warn("Failed to send orphan {}: {}", id, e.getMessage());
+                    log.warn("Failed to send {} {}, dead-lettering: {}", record.kind(), record.id(), e.getMessage());
+                    metrics.sinkFailed(1);
+                    deadLetters.add(List.of(outbound));
                     return Mono.empty();
                 })
                 .flux();
     }
 
+    private void acknowledged(List<Outbound> batch) {
+        metrics.sinkSubmitted(batch.size());
+        latency.acknowledged(batch);
+        ackLedger.acknowledged(batch);
+        checkpointer.acknowledged(batch);
+    }
+
+    private void shortCircuited(List<Outbound> batch) {
+        metrics.shortCircuited(batch.size());
+        deadLetters.add(batch);
+    }
+
+    private Retry sinkRetry() {
+        return Retry.backoff(SINK_RETRY_MAX_ATTEMPTS, Duration.ofMillis(SINK_RETRY_BACKOFF_MS))
+                .filter(e -> !(e instanceof SinkBatchRefusedException)
+                        && !(e instanceof SinkDeferredException)
+                        && !(e instanceof SinkPayloadTooLargeException)
+                        && !(e instanceof SinkUnavailableException))
+                .doBeforeRetry(signal -> metrics.sinkRetry());
+    }
+
     /**
      * Periodically flush old pending items as orphans.
      */
-    protected Flux<Void> orphanFlusher() {
+    protected Flux<Outbound> orphanFlusher() {
         return Flux.interval(Duration.ofSeconds(ORPHAN_FLUSH_INTERVAL_SECONDS))
-                .flatMap(tick -> flushExpired());
+                .onBackpressureDrop() // a skipped tick is caught up by the next one
+                .takeUntilOther(stopping.asMono())
+                .concatMap(tick -> flushExpired());
     }
 
-    private Flux<Void> flushExpired() {
-        long now = System.currentTimeMillis();
-
-        List<String> expiredIds = pendingMap.entrySet().stream()
-                .filter(e -> now - e.getValue().timestamp >= ORPHAN_TIMEOUT_MS)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
-
-        expiredIds.forEach(pendingMap::remove);
-
-        if (expiredIds.isEmpty()) return Flux.empty();
+    private Flux<Outbound> flushExpired() {
+        if (log.isDebugEnabled()) {
+            int[] depths = new int[joinEngine.shardCount()];
+            for (int i = 0; i < depths.length; i++) depths[i] = joinEngine.queueDepth(i);
+            log.debug("{} ids pending, shard queue depths {}", joinEngine.size(), Arrays.toString(depths));
+        }
+        return metrics.timeOrphanFlush(joinEngine.expire());
+    }
 
-        return Flux.fromIterable(expiredIds)
-                .flatMap(this::sendOrphanFlux, 64); // small concurrency
+    /**
+     * Periodically put dead letters back into the outbound stream: all of them while the sink
+     * circuit is closed, one batch to probe the sink while it is half-open.
+     */
+    protected Flux<Outbound> deadLetterReplay() {
+        return Flux.interval(Duration.ofSeconds(DEAD_LETTER_REPLAY_INTERVAL_SECONDS))
+                .onBackpressureDrop()
+                .takeUntilOther(stopping.asMono())
+                .concatMapIterable(tick -> switch (breaker.state()) {
+                    case CLOSED -> deadLetters.drain();
+                    case HALF_OPEN -> deadLetters.drain(SINK_BATCH_SIZE);
+                    case OPEN -> List.of();
+                });
     }
 
     /**
      * Flush everything as orphans on shutdown.
      */
-    private Flux<Void> flushAllPending() {
-        List<String> remaining = List.copyOf(pendingMap.keySet());
-        pendingMap.clear();
-        if (remaining.isEmpty()) return Flux.empty();
-
-        return Flux.fromIterable(remaining)
-                .flatMap(this::sendOrphanFlux, 64);
+    private Flux<Outbound> flushAllPending() {
+        return Flux.fromIterable(joinEngine.drain());
     }
 }
@@ -0,0 +1,260 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Source;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Meters of the join pipeline, exposed through Actuator at {@code /actuator/prometheus}.
+ * <p>
+ * Every meter is registered up front and kept in a field (per-source meters in arrays indexed by
+ * {@link Source#ordinal()}), so per-record updates are a field read and an add, with no registry
+ * lookup, tag array or lambda allocated on the hot path.
+ */
+@Component
+class StreamMetrics {
+
+    private final MeterRegistry registry;
+
+    private final Counter[] read;
+    private final Counter[] defective;
+    private final Counter[] duplicate;
+    private final Counter[] pauses;
+    private final Timer[] paused;
+    private final Counter joined;
+    private final Counter orphaned;
+    private final Counter sinkSubmitted;
+    private final Counter sinkRetries;
+    private final Counter sinkFailed;
+    private final Timer sinkRequest;
+    private final Timer orphanFlush;
+    private final AtomicInteger sinkInFlight = new AtomicInteger();
+    private final Counter sinkSaturated;
+    private final Counter ledgerSkipped;
+    private final Counter ledgerProbableDuplicates;
+    private final Counter deadLettered;
+    private final Counter deadLettersLost;
+    private final Counter deferred;
+    private final Counter shortCircuited;
+
+    StreamMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Source[] sources = Source.values();
+        this.read = new Counter[sources.length];
+        this.defective = new Counter[sources.length];
+        this.duplicate = new Counter[sources.length];
+        this.pauses = new Counter[sources.length];
+        this.paused = new Timer[sources.length];
+        for (Source source : sources) {
+            String tag = source.name().toLowerCase();
+            read[source.ordinal()] = Counter.builder("stream.records.read")
+                    .description("Records read from a source, valid or not")
+                    .tag("source", tag)
+                    .register(registry);
+            defective[source.ordinal()] = Counter.builder("stream.records.defective")
+                    .description("Records that failed to parse")
+                    .tag("source", tag)
+                    .register(registry);
+            duplicate[source.ordinal()] = Counter.builder("stream.records.duplicate")
+                    .description("Ids seen again on the same source while pending")
+                    .tag("source", tag)
+                    .register(registry);
+            pauses[source.ordinal()] = Counter.builder("stream.backpressure.pauses")
+                    .description("Times a source was held back at the pending high watermark")
+                    .tag("source", tag)
+                    .register(registry);
+            paused[source.ordinal()] = Timer.builder("stream.backpressure.paused")
+                    .tag("source", tag)
+                    .register(registry);
+        }
+        this.joined = Counter.builder("stream.records.joined").register(registry);
+        this.orphaned = Counter.builder("stream.records.orphaned").register(registry);
+        this.sinkSubmitted = Counter.builder("stream.sink.records")
+                .description("Records acknowledged by the sink")
+                .register(registry);
+        this.sinkRetries = Counter.builder("stream.sink.retries").register(registry);
+        this.sinkFailed = Counter.builder("stream.sink.failed")
+                .description("Records given up on after the last retry")
+                .register(registry);
+        this.sinkRequest = Timer.builder("stream.sink.request")
+                .description("Sink request duration, retries included")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.orphanFlush = Timer.builder("stream.orphan.flush").register(registry);
+        Gauge.builder("stream.sink.in.flight", sinkInFlight, AtomicInteger::get)
+                .description("Sink sends started and not finished")
+                .register(registry);
+        this.sinkSaturated = Counter.builder("stream.backpressure.sink.saturated")
+                .description("Sends that took the last free sink slot")
+                .register(registry);
+        this.ledgerSkipped = Counter.builder("stream.ledger.skipped")
+                .description("Records not submitted because the sink already acknowledged their id")
+                .register(registry);
+        this.ledgerProbableDuplicates = Counter.builder("stream.ledger.probable.duplicates")
+                .description("Records submitted on a ledger Bloom filter hit its exact sets did not confirm")
+                .register(registry);
+        this.deadLettered = Counter.builder("stream.sink.dead.lettered")
+                .description("Records put in the dead letter queue for a later replay")
+                .register(registry);
+        this.deadLettersLost = Counter.builder("stream.sink.dead.letters.lost")
+                .description("Dead letters dropped because the queue was full")
+                .register(registry);
+        this.deferred = Counter.builder("stream.sink.deferred")
+                .description("Records parked after the sink asked to read from a source first (406)")
+                .register(registry);
+        this.shortCircuited = Counter.builder("stream.sink.short.circuited")
+                .description("Records dead-lettered without a call because the sink circuit was open")
+                .register(registry);
+    }
+
+    /**
+     * Gauges reading the engine on scrape: pending ids per source and per-shard queue depth.
+     */
+    void bind(JoinEngine joinEngine) {
+        for (Source source : Source.values()) {
+            Gauge.builder("stream.pending.size", joinEngine, engine -> engine.pending(source))
+                    .description("Ids waiting for their counterpart")
+                    .tag("source", source.name().toLowerCase())
+                    .register(registry);
+        }
+        for (int i = 0; i < joinEngine.shardCount(); i++) {
+            int shard = i;
+            Gauge.builder("stream.join.queue.depth", joinEngine, engine -> engine.queueDepth(shard))
+                    .tag("shard", String.valueOf(shard))
+                    .register(registry);
+        }
+    }
+
+    void bind(DeadLetterQueue deadLetters) {
+        Gauge.builder("stream.sink.dead.letters", deadLetters, DeadLetterQueue::size)
+                .description("Records waiting for a replay to the sink")
+                .register(registry);
+    }
+
+    void bind(DeferredQueue deferredQueue) {
+        Gauge.builder("stream.sink.parked", deferredQueue, DeferredQueue::size)
+                .description("Records waiting for a source read before going back to the sink")
+                .register(registry);
+    }
+
+    void bind(SinkConcurrencyLimiter limiter) {
+        Gauge.builder("stream.sink.limit", limiter, SinkConcurrencyLimiter::currentLimit)
+                .description("Concurrent sink calls currently allowed by the adaptive limit")
+                .register(registry);
+        Gauge.builder("stream.sink.limit.waiting", limiter, SinkConcurrencyLimiter::waiting)
+                .description("Sink calls waiting for the adaptive limit")
+                .register(registry);
+        Gauge.builder("stream.sink.limit.rtt.min", limiter, l -> l.rttNoLoadNanos() / 1e6)
+                .description("Round trip taken for an idle sink, in milliseconds")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    void bind(SinkCircuitBreaker breaker) {
+        Gauge.builder("stream.sink.circuit.state", breaker, b -> b.state().ordinal())
+                .description("Sink circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .register(registry);
+    }
+
+    void read(Source source) {
+        read[source.ordinal()].increment();
+    }
+
+    void defective(Source source) {
+        defective[source.ordinal()].increment();
+    }
+
+    void duplicate(Source source) {
+        duplicate[source.ordinal()].increment();
+    }
+
+    void joined() {
+        joined.increment();
+    }
+
+    void orphaned() {
+        orphaned.increment();
+    }
+
+    void sinkSubmitted(int records) {
+        sinkSubmitted.increment(records);
+    }
+
+    void sinkRetry() {
+        sinkRetries.increment();
+    }
+
+    void sinkFailed(int records) {
+        sinkFailed.increment(records);
+    }
+
+    void ledgerSkipped() {
+        ledgerSkipped.increment();
+    }
+
+    void ledgerProbableDuplicate() {
+        ledgerProbableDuplicates.increment();
+    }
+
+    void deadLettered(int records) {
+        deadLettered.increment(records);
+    }
+
+    void deadLetterLost() {
+        deadLettersLost.increment();
+    }
+
+    void deferred(int records) {
+        deferred.increment(records);
+    }
+
+    void shortCircuited(int records) {
+        shortCircuited.increment(records);
+    }
+
+    void paused(Source source) {
+        pauses[source.ordinal()].increment();
+    }
+
+    void resumed(Source source, long pausedNanos) {
+        paused[source.ordinal()].record(pausedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Count {@code send} in the in-flight gauge while it runs.
+     *
+     * @param limit the sink concurrency, reaching it counts as saturation
+     */
+    <T> Flux<T> trackSinkInFlight(Flux<T> send, int limit) {
+        return Flux.defer(() -> {
+            if (sinkInFlight.incrementAndGet() >= limit) sinkSaturated.increment();
+            return send.doFinally(signal -> sinkInFlight.decrementAndGet());
+        });
+    }
+
+    <T> Mono<T> timeSinkRequest(Mono<T> request) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return request.doFinally(signal -> sinkRequestTook(System.nanoTime() - start));
+        });
+    }
+
+    void sinkRequestTook(long nanos) {
+        sinkRequest.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    <T> Flux<T> timeOrphanFlush(Flux<T> flush) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return flush.doFinally(signal -> orphanFlush.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+}
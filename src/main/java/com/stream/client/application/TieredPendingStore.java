@@ -0,0 +1,308 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Source;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * {@link PendingStore} that keeps recent ids in memory and spills older ones to disk, for orphan
+ * timeouts long enough that the unmatched set would not fit on the heap.
+ * <p>
+ * The hot tier is an ordinary store whose timeout is the hot window; ids it expires are appended
+ * to the newest cold segment instead of being reported. A segment is a memory-mapped file holding
+ * an open-addressing hash index of record offsets followed by append-only records
+ * ({@code int length, byte flags, long firstSeen, id}, a hex id as its two longs); a match only
+ * flips the record's dead flag.
+ * Each segment keeps a Bloom filter on the heap (one byte per entry) so that most lookups of
+ * ids that are not cold never touch the mapping.
+ * <p>
+ * Segments cover a bounded span of first-seen times and are dropped whole, file and all, once
+ * their newest entry has timed out; a cold id therefore expires up to one span late. A dropped
+ * segment is unlinked right away; its mapping is released when the buffer is collected, so it is
+ * never unmapped while something may still read it.
+ */
+@Slf4j
+class TieredPendingStore implements PendingStore {
+
+    static final int SEGMENT_ENTRIES = 1 << 17;
+    private static final int INDEX_SLOTS = SEGMENT_ENTRIES * 2;
+    private static final int INDEX_BYTES = INDEX_SLOTS * Integer.BYTES;
+    private static final int DATA_BYTES = SEGMENT_ENTRIES * 48;
+    private static final int BLOOM_BITS = SEGMENT_ENTRIES * 8;
+
+    // record header: int length, byte flags, long firstSeen
+    private static final int HEADER = 13;
+    private static final byte SOURCE_B = 1;
+    private static final byte DEAD = 2;
+    // id stored one byte per char
+    private static final byte LATIN1 = 4;
+    // id stored as the two longs of a hex id
+    private static final byte HEX = 8;
+    private static final int HEX_BYTES = 2 * Long.BYTES;
+
+    private final PendingStore hot;
+    private final Path directory;
+    private final long timeoutMs;
+    private final long segmentSpanMs;
+
+    // oldest first
+    private final List<Segment> segments = new ArrayList<>();
+    private long coldSize;
+    private int segmentSequence;
+
+    /**
+     * @param hot           store for ids younger than the hot window, its timeout is that window
+     * @param directory     empty directory owned by this store
+     * @param timeoutMs     orphan timeout, longer than the hot window
+     * @param segmentSpanMs first-seen span covered by one segment
+     */
+    TieredPendingStore(PendingStore hot, Path directory, long timeoutMs, long segmentSpanMs) {
+        this.hot = hot;
+        this.directory = directory;
+        this.timeoutMs = timeoutMs;
+        this.segmentSpanMs = segmentSpanMs;
+    }
+
+    @Override
+    public synchronized long offer(Id id, Source source, long now) {
+        if (coldSize > 0) {
+            long hash = id.hash();
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                Segment segment = segments.get(i);
+                int at = segment.find(id, hash);
+                if (at < 0) continue;
+                // same source duplicate → keep original timestamp
+                if (segment.source(at) == source) return DUPLICATE;
+                // opposite source → matched
+                segment.kill(at);
+                coldSize--;
+                return segment.firstSeen(at);
+            }
+        }
+        return hot.offer(id, source, now);
+    }
+
+    @Override
+    public synchronized void expire(long now, EntryConsumer expired) {
+        while (!segments.isEmpty() && now - segments.get(0).newest >= timeoutMs) {
+            Segment segment = segments.remove(0);
+            coldSize -= segment.live;
+            segment.forEachLive(expired);
+            segment.delete();
+        }
+        hot.expire(now, this::spill);
+    }
+
+    @Override
+    public synchronized void forEach(long now, EntryConsumer visitor) {
+        hot.forEach(now, visitor);
+        for (Segment segment : segments) {
+            segment.forEachLive(visitor);
+        }
+    }
+
+    @Override
+    public synchronized void drain(long now, EntryConsumer removed) {
+        hot.drain(now, removed);
+        while (!segments.isEmpty()) {
+            Segment segment = segments.remove(0);
+            coldSize -= segment.live;
+            segment.forEachLive(removed);
+            segment.delete();
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return (int) (hot.size() + coldSize);
+    }
+
+    private void spill(Id id, Source source, long firstSeen) {
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || !segment.accepts(id, firstSeen)) {
+            segment = new Segment(directory.resolve("segment-" + segmentSequence++ + ".bin"));
+            segments.add(segment);
+        }
+        segment.append(id, source, firstSeen, id.hash());
+        coldSize++;
+    }
+
+    private final class Segment {
+
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private final long[] bloom = new long[BLOOM_BITS / Long.SIZE];
+        private int entries;
+        private int live;
+        // next free byte of the data region
+        private int end;
+        private long oldest = Long.MAX_VALUE;
+        private long newest = Long.MIN_VALUE;
+
+        Segment(Path path) {
+            this.path = path;
+            try (FileChannel channel = FileChannel.open(path, CREATE_NEW, READ, WRITE)) {
+                // the mapping outlives the channel; a fresh file reads as zeros, i.e. an empty index
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_BYTES + (long) DATA_BYTES);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create pending segment " + path, e);
+            }
+        }
+
+        boolean accepts(Id id, long firstSeen) {
+            return entries < SEGMENT_ENTRIES
+                    && end + HEADER + (id.isHex() ? HEX_BYTES : 2L * id.toString().length()) <= DATA_BYTES
+                    && firstSeen - oldest < segmentSpanMs;
+        }
+
+        void append(Id id, Source source, long firstSeen, long hash) {
+            int at = INDEX_BYTES + end;
+            byte sourceFlag = source == Source.B ? SOURCE_B : 0;
+            buffer.putLong(at + 5, firstSeen);
+            if (id.isHex()) {
+                buffer.putInt(at, HEX_BYTES);
+                buffer.put(at + 4, (byte) (sourceFlag | HEX));
+                buffer.putLong(at + HEADER, id.hi());
+                buffer.putLong(at + HEADER + Long.BYTES, id.lo());
+            } else {
+                String raw = id.toString();
+                boolean latin1 = isLatin1(raw);
+                buffer.putInt(at, raw.length());
+                buffer.put(at + 4, (byte) (sourceFlag | (latin1 ? LATIN1 : 0)));
+                for (int i = 0, n = raw.length(); i < n; i++) {
+                    if (latin1) {
+                        buffer.put(at + HEADER + i, (byte) raw.charAt(i));
+                    } else {
+                        buffer.putChar(at + HEADER + 2 * i, raw.charAt(i));
+                    }
+                }
+            }
+
+            int slot = indexSlot(hash);
+            while (buffer.getInt(slot * Integer.BYTES) != 0) slot = (slot + 1) & (INDEX_SLOTS - 1);
+            buffer.putInt(slot * Integer.BYTES, end + 1);
+            for (int k = 0; k < 3; k++) {
+                int bit = bloomBit(hash, k);
+                bloom[bit >>> 6] |= 1L << bit;
+            }
+
+            end += recordBytes(at);
+            entries++;
+            live++;
+            oldest = Math.min(oldest, firstSeen);
+            newest = Math.max(newest, firstSeen);
+        }
+
+        /**
+         * @return position of the live record for {@code id}, or -1
+         */
+        int find(Id id, long hash) {
+            for (int k = 0; k < 3; k++) {
+                int bit = bloomBit(hash, k);
+                if ((bloom[bit >>> 6] & 1L << bit) == 0) return -1;
+            }
+            // an id matched, re-inserted and spilled again has a dead and a live record here
+            for (int slot = indexSlot(hash); ; slot = (slot + 1) & (INDEX_SLOTS - 1)) {
+                int offset = buffer.getInt(slot * Integer.BYTES);
+                if (offset == 0) return -1;
+                int at = INDEX_BYTES + offset - 1;
+                if ((buffer.get(at + 4) & DEAD) == 0 && idEquals(at, id)) return at;
+            }
+        }
+
+        Source source(int at) {
+            return (buffer.get(at + 4) & SOURCE_B) != 0 ? Source.B : Source.A;
+        }
+
+        long firstSeen(int at) {
+            return buffer.getLong(at + 5);
+        }
+
+        void kill(int at) {
+            buffer.put(at + 4, (byte) (buffer.get(at + 4) | DEAD));
+            live--;
+        }
+
+        void forEachLive(EntryConsumer consumer) {
+            for (int at = INDEX_BYTES; at < INDEX_BYTES + end; at += recordBytes(at)) {
+                if ((buffer.get(at + 4) & DEAD) == 0) consumer.accept(readId(at), source(at), firstSeen(at));
+            }
+        }
+
+        /**
+         * Delete the segment's file, once it is out of the segment list. A file that cannot be
+         * deleted is left to the spill directory cleanup.
+         */
+        void delete() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Cannot delete pending segment {}", path, e);
+            }
+        }
+
+        private int recordBytes(int at) {
+            byte flags = buffer.get(at + 4);
+            if ((flags & HEX) != 0) return HEADER + HEX_BYTES;
+            return HEADER + ((flags & LATIN1) != 0 ? 1 : 2) * buffer.getInt(at);
+        }
+
+        private boolean idEquals(int at, Id id) {
+            byte flags = buffer.get(at + 4);
+            if ((flags & HEX) != 0) {
+                return id.isHex() && buffer.getLong(at + HEADER) == id.hi() && buffer.getLong(at + HEADER + Long.BYTES) == id.lo();
+            }
+            if (id.isHex()) return false;
+            String raw = id.toString();
+            int length = buffer.getInt(at);
+            if (length != raw.length()) return false;
+            boolean latin1 = (flags & LATIN1) != 0;
+            for (int i = 0; i < length; i++) {
+                char c = latin1 ? (char) (buffer.get(at + HEADER + i) & 0xFF) : buffer.getChar(at + HEADER + 2 * i);
+                if (c != raw.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        private Id readId(int at) {
+            byte flags = buffer.get(at + 4);
+            if ((flags & HEX) != 0) return Id.ofHex(buffer.getLong(at + HEADER), buffer.getLong(at + HEADER + Long.BYTES));
+            int length = buffer.getInt(at);
+            boolean latin1 = (flags & LATIN1) != 0;
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = latin1 ? (char) (buffer.get(at + HEADER + i) & 0xFF) : buffer.getChar(at + HEADER + 2 * i);
+            }
+            return Id.of(new String(chars));
+        }
+    }
+
+    private static boolean isLatin1(String raw) {
+        for (int i = 0, n = raw.length(); i < n; i++) {
+            if (raw.charAt(i) > 0xFF) return false;
+        }
+        return true;
+    }
+
+    private static int indexSlot(long hash) {
+        return (int) (hash >>> 40) & (INDEX_SLOTS - 1);
+    }
+
+    private static int bloomBit(long hash, int k) {
+        // double hashing over the two halves of the hash
+        return ((int) hash + k * (int) (hash >>> 32)) & (BLOOM_BITS - 1);
+    }
+}
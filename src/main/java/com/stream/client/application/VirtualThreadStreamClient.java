@@ -0,0 +1,481 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Record;
+import com.stream.client.domain.model.Source;
+import com.stream.client.domain.model.SourceEvent;
+import com.stream.client.domain.port.BlockingSinkPort;
+import com.stream.client.domain.port.BlockingSourcePort;
+import com.stream.client.domain.port.SinkBatchRefusedException;
+import com.stream.client.domain.port.SinkDeferredException;
+import com.stream.client.domain.port.SinkPayloadTooLargeException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Blocking-style alternative to {@link StreamClientService}, selected with
+ * {@code stream-client.engine: virtual-threads}.
+ * <p>
+ * One virtual thread per source reads and joins; joined and orphaned records go through a
+ * bounded queue to {@code SINK_MAX_IN_FLIGHT} virtual-thread writers that batch them by size or
+ * time. A full queue blocks the readers, which is this engine's backpressure. Join state, flow
+ * control, the ack ledger, dead letters, 406 parking, the sink circuit breaker and checkpoints
+ * are the same components the reactive engine uses; the adaptive sink limit is not, the writer
+ * count being the fixed concurrency.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stream-client.engine", havingValue = "virtual-threads")
+public class VirtualThreadStreamClient {
+
+    private final BlockingSourcePort sourceA;
+    private final BlockingSourcePort sourceB;
+    private final BlockingSinkPort sink;
+    private final JoinEngine joinEngine;
+    private final StreamMetrics metrics;
+    private final LatencyTracker latency;
+    private final FlowControl flowControl;
+    private final Checkpointer checkpointer;
+    private final AckLedger ackLedger;
+    private final DeadLetterQueue deadLetters;
+    private final DeferredQueue deferredQueue;
+    private final SinkCircuitBreaker breaker;
+
+    @Value("${stream-client.orphan-flusher-interval-seconds}")
+    protected long ORPHAN_FLUSH_INTERVAL_SECONDS;
+
+    @Value("${stream-client.sink-retry-max-attempts}")
+    protected int SINK_RETRY_MAX_ATTEMPTS;
+
+    @Value("${stream-client.sink-retry-backoff-ms}")
+    protected long SINK_RETRY_BACKOFF_MS;
+
+    @Value("${stream-client.sink-batch-size}")
+    protected int SINK_BATCH_SIZE;
+
+    @Value("${stream-client.sink-batch-max-delay-ms}")
+    protected long SINK_BATCH_MAX_DELAY_MS;
+
+    @Value("${stream-client.sink-max-in-flight}")
+    protected int SINK_MAX_IN_FLIGHT;
+
+    @Value("${stream-client.dead-letter-replay-interval-seconds}")
+    protected long DEAD_LETTER_REPLAY_INTERVAL_SECONDS;
+
+    private BlockingQueue<Outbound> outbound;
+    // readers and timers, interrupted on shutdown
+    private final List<Thread> producers = new CopyOnWriteArrayList<>();
+    private final List<Thread> writers = new CopyOnWriteArrayList<>();
+    // set on shutdown; readers and timers stop producing once they see it
+    private volatile boolean stopping;
+    // readers and timers between their check of stopping and the end of their step
+    private final AtomicInteger producing = new AtomicInteger();
+    // records enqueued and not yet through a writer's send
+    private final AtomicInteger unsent = new AtomicInteger();
+    // until the deferred queue, closed on shutdown, has handed over its last record
+    private volatile boolean releasing = true;
+    // signalled, once stopping, whenever one of the three above may have settled
+    private final Lock idleLock = new ReentrantLock();
+    private final Condition idle = idleLock.newCondition();
+
+    public VirtualThreadStreamClient(@Qualifier("blockingSourceA") BlockingSourcePort sourceA,
+                                     @Qualifier("blockingSourceB") BlockingSourcePort sourceB,
+                                     BlockingSinkPort sink,
+                                     JoinEngine joinEngine,
+                                     StreamMetrics metrics,
+                                     LatencyTracker latency,
+                                     FlowControl flowControl,
+                                     Checkpointer checkpointer,
+                                     AckLedger ackLedger,
+                                     DeadLetterQueue deadLetters,
+                                     DeferredQueue deferredQueue,
+                                     SinkCircuitBreaker breaker) {
+        this.sourceA = sourceA;
+        this.sourceB = sourceB;
+        this.sink = sink;
+        this.joinEngine = joinEngine;
+        this.metrics = metrics;
+        this.latency = latency;
+        this.flowControl = flowControl;
+        this.checkpointer = checkpointer;
+        this.ackLedger = ackLedger;
+        this.deadLetters = deadLetters;
+        this.deferredQueue = deferredQueue;
+        this.breaker = breaker;
+    }
+
+    @PostConstruct
+    public void start() {
+        log.info("Starting virtual-thread streaming client with {} sink writers", SINK_MAX_IN_FLIGHT);
+        metrics.bind(joinEngine);
+        metrics.bind(deadLetters);
+        metrics.bind(deferredQueue);
+        metrics.bind(breaker);
+        outbound = new ArrayBlockingQueue<>(SINK_BATCH_SIZE * SINK_MAX_IN_FLIGHT);
+
+        producers.add(Thread.ofVirtual().name("source-a-reader").start(() -> read(Source.A, sourceA)));
+        producers.add(Thread.ofVirtual().name("source-b-reader").start(() -> read(Source.B, sourceB)));
+        Thread.Builder writer = Thread.ofVirtual().name("sink-writer-", 0);
+        for (int i = 0; i < SINK_MAX_IN_FLIGHT; i++) {
+            writers.add(writer.start(this::write));
+        }
+        producers.add(Thread.ofVirtual().name("orphan-flusher").start(() -> every(ORPHAN_FLUSH_INTERVAL_SECONDS, () -> {
+            enqueueAll(metrics.timeOrphanFlush(joinEngine.expire()));
+        })));
+        // all letters while the sink circuit is closed, one batch to probe it while half-open
+        producers.add(Thread.ofVirtual().name("dead-letter-replay").start(() -> every(DEAD_LETTER_REPLAY_INTERVAL_SECONDS, () -> {
+            List<Outbound> letters = switch (breaker.state()) {
+                case CLOSED -> deadLetters.drain();
+                case HALF_OPEN -> deadLetters.drain(SINK_BATCH_SIZE);
+                case OPEN -> List.of();
+            };
+            for (Outbound letter : letters) enqueue(letter);
+        })));
+        producers.add(Thread.ofVirtual().name("deferred-release").start(() -> {
+            try {
+                // ends once the queue is closed on shutdown
+                enqueueAll(deferredQueue.released());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                releasing = false;
+                signalIdle();
+            }
+        }));
+    }
+
+    /**
+     * Runs when the context closes, before the join engine it depends on stops its shard threads.
+     * <p>
+     * Reading stops first and what was read runs through to the sink, so that afterwards every
+     * record is either acknowledged, pending, dead-lettered or parked; only then are the queues
+     * given a last attempt and the rest checkpointed or flushed.
+     * <p>
+     * Writers the sink still holds after the wait are interrupted too; they dead-letter what they
+     * were sending, and records left in the outbound queue join the last attempt, so a slow sink
+     * at shutdown loses nothing silently.
+     */
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+        flowControl.stop();
+        deferredQueue.close();
+        awaitIdle(TimeUnit.SECONDS.toNanos(10));
+        if (busy()) log.warn("{} records still unsent after 10 s, stopping anyway", unsent.get());
+        // readers blocked on their source, timers asleep
+        producers.forEach(Thread::interrupt);
+        // idle writers, and writers still sending, which dead-letter their batch
+        writers.forEach(Thread::interrupt);
+        awaitWriters();
+
+        // a last attempt for what the sink refused or never got so far
+        List<Outbound> waiting = new ArrayList<>();
+        unsent.addAndGet(-outbound.drainTo(waiting));
+        waiting.addAll(deadLetters.drain());
+        waiting.addAll(deferredQueue.drain());
+        sendAll(waiting);
+        // with a checkpoint, pending ids survive the restart instead of being sent as orphans
+        if (checkpointer.isEnabled()) {
+            checkpointer.snapshot().block(Duration.ofSeconds(10));
+            return;
+        }
+        sendAll(joinEngine.drain());
+    }
+
+    private void awaitWriters() {
+        try {
+            for (Thread writer : writers) {
+                if (!writer.join(Duration.ofSeconds(1))) log.warn("Sink writer {} did not stop", writer.getName());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitIdle(long nanos) {
+        idleLock.lock();
+        try {
+            while (busy() && nanos > 0) {
+                nanos = idle.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            idleLock.unlock();
+        }
+    }
+
+    private boolean busy() {
+        return producing.get() > 0 || releasing || unsent.get() > 0;
+    }
+
+    /**
+     * Wake the shutdown up to check {@link #busy()} again; a no-op while running, as the
+     * shutdown sets stopping before its first check.
+     */
+    private void signalIdle() {
+        if (!stopping) return;
+        idleLock.lock();
+        try {
+            idle.signalAll();
+        } finally {
+            idleLock.unlock();
+        }
+    }
+
+    private void read(Source source, BlockingSourcePort port) {
+        try {
+            port.readAll(event -> {
+                if (!produce(() -> handleEvent(source, event))) throw new Stopped();
+            });
+            log.info("Source {} exhausted", source);
+        } catch (Stopped e) {
+            log.info("Stopped reading source {}", source);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Reading source {} failed: {}", source, e.getMessage());
+        }
+    }
+
+    private void handleEvent(Source source, SourceEvent event) throws InterruptedException {
+        switch (event) {
+            case SourceEvent.Valid valid -> {
+                metrics.read(source);
+                deferredQueue.sourceProgressed();
+                // same match-or-insert as the reactive engine, waited for on this thread
+                Outbound joined = flowControl.admit(source, joinEngine.offer(source, valid.id())).block();
+                if (joined != null) enqueue(joined);
+            }
+            case SourceEvent.Defective defective -> {
+                metrics.read(source);
+                deferredQueue.sourceProgressed();
+                metrics.defective(source);
+                log.warn("Malformed {} record: {}", source, defective.reason());
+            }
+            case SourceEvent.Done done -> { }
+            case SourceEvent.Exhausted exhausted -> { }
+        }
+    }
+
+    private void enqueue(Outbound record) throws InterruptedException {
+        unsent.incrementAndGet();
+        try {
+            outbound.put(record);
+        } catch (InterruptedException e) {
+            // interrupted on shutdown in front of a full queue: the record joins the last attempt
+            deadLetters.add(List.of(record));
+            if (unsent.decrementAndGet() == 0) signalIdle();
+            throw e;
+        }
+    }
+
+    /**
+     * Enqueue every record of {@code records} as it arrives, waited for on this thread.
+     */
+    private void enqueueAll(Flux<Outbound> records) throws InterruptedException {
+        try {
+            for (Outbound record : records.toIterable()) enqueue(record);
+        } catch (RuntimeException e) {
+            // the blocking iterable reports an interrupt while waiting as an unchecked exception
+            if (Exceptions.unwrap(e) instanceof InterruptedException interrupted) throw interrupted;
+            throw e;
+        }
+    }
+
+    /**
+     * Run a reader's or timer's step unless the client is stopping.
+     *
+     * @return false if it was not run
+     */
+    private boolean produce(Task step) throws InterruptedException {
+        // counted before the check, so the shutdown waits for a step that saw stopping unset
+        producing.incrementAndGet();
+        try {
+            if (stopping) return false;
+            step.run();
+            return true;
+        } finally {
+            if (producing.decrementAndGet() == 0) signalIdle();
+        }
+    }
+
+    /**
+     * Take records off the queue in batches of up to {@code SINK_BATCH_SIZE}, waiting at most
+     * {@code SINK_BATCH_MAX_DELAY_MS} for a batch to fill once its first record arrived.
+     */
+    private void write() {
+        List<Outbound> batch = new ArrayList<>(SINK_BATCH_SIZE);
+        try {
+            while (true) {
+                batch.add(outbound.take());
+                try {
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SINK_BATCH_MAX_DELAY_MS);
+                    while (batch.size() < SINK_BATCH_SIZE) {
+                        if (outbound.drainTo(batch, SINK_BATCH_SIZE - batch.size()) > 0) continue;
+                        Outbound next = outbound.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (next == null) break;
+                        batch.add(next);
+                    }
+                    sendBatch(batch);
+                } catch (InterruptedException e) {
+                    // interrupted on shutdown, maybe mid-send: what the sink has not acknowledged joins the last attempt
+                    List<Outbound> unacknowledged = ackLedger.unacknowledged(batch);
+                    if (!unacknowledged.isEmpty()) deadLetters.add(unacknowledged);
+                    throw e;
+                } finally {
+                    if (unsent.addAndGet(-batch.size()) == 0) signalIdle();
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sendAll(List<Outbound> records) {
+        try {
+            for (int from = 0; from < records.size(); from += SINK_BATCH_SIZE) {
+                sendBatch(new ArrayList<>(records.subList(from, Math.min(records.size(), from + SINK_BATCH_SIZE))));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Submit a batch, falling back to one post per record when the sink does not take batches;
+     * same outcomes as {@link StreamClientService}'s reactive send.
+     */
+    private void sendBatch(List<Outbound> batch) throws InterruptedException {
+        List<Outbound> fresh = ackLedger.unacknowledged(batch);
+        if (fresh.isEmpty()) return;
+        if (fresh.size() == 1) {
+            sendRecord(fresh.get(0));
+            return;
+        }
+
+        List<Record> records = new ArrayList<>(fresh.size());
+        for (Outbound record : fresh) records.add(record.record());
+        try {
+            withRetry(() -> breaker.protect(() -> sink.sendBatch(records)));
+            acknowledged(fresh);
+        } catch (SinkBatchRefusedException e) {
+            int accepted = e.accepted();
+            if (accepted > 0) acknowledged(fresh.subList(0, accepted));
+            for (Outbound record : fresh.subList(accepted, fresh.size())) sendRecord(record);
+        } catch (SinkPayloadTooLargeException e) {
+            int half = fresh.size() / 2;
+            sendBatch(fresh.subList(0, half));
+            sendBatch(fresh.subList(half, fresh.size()));
+        } catch (SinkDeferredException e) {
+            deferredQueue.park(fresh);
+        } catch (SinkUnavailableException e) {
+            shortCircuited(fresh);
+        } catch (RuntimeException e) {
+            log.warn("Failed to send batch of {} records, dead-lettering: {}", fresh.size(), e.getMessage());
+            metrics.sinkFailed(fresh.size());
+            deadLetters.add(fresh);
+        }
+    }
+
+    private void sendRecord(Outbound outbound) throws InterruptedException {
+        Record record = outbound.record();
+        try {
+            withRetry(() -> breaker.protect(() -> sink.sendRecord(record)));
+            acknowledged(List.of(outbound));
+        } catch (SinkDeferredException e) {
+            deferredQueue.park(List.of(outbound));
+        } catch (SinkUnavailableException e) {
+            shortCircuited(List.of(outbound));
+        } catch (RuntimeException e) {
+            log.warn("Failed to send {} {}, dead-lettering: {}", record.kind(), record.id(), e.getMessage());
+            metrics.sinkFailed(1);
+            deadLetters.add(List.of(outbound));
+        }
+    }
+
+    private void acknowledged(List<Outbound> batch) {
+        metrics.sinkSubmitted(batch.size());
+        latency.acknowledged(batch);
+        ackLedger.acknowledged(batch);
+        checkpointer.acknowledged(batch);
+    }
+
+    private void shortCircuited(List<Outbound> batch) {
+        metrics.shortCircuited(batch.size());
+        deadLetters.add(batch);
+    }
+
+    /**
+     * Exponential backoff like the reactive engine's {@code Retry.backoff}, timed retries included.
+     */
+    private void withRetry(SinkCall call) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    call.run();
+                    return;
+                } catch (SinkBatchRefusedException | SinkDeferredException | SinkPayloadTooLargeException
+                         | SinkUnavailableException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    if (attempt >= SINK_RETRY_MAX_ATTEMPTS) throw e;
+                    metrics.sinkRetry();
+                    Thread.sleep(SINK_RETRY_BACKOFF_MS << attempt);
+                }
+            }
+        } finally {
+            metrics.sinkRequestTook(System.nanoTime() - start);
+        }
+    }
+
+    private void every(long seconds, Task task) {
+        try {
+            while (true) {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+                if (!produce(task)) return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface SinkCall {
+        void run() throws InterruptedException;
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run() throws InterruptedException;
+    }
+
+    /**
+     * Ends a reader's {@code readAll} once the client is stopping.
+     */
+    private static final class Stopped extends RuntimeException {
+        Stopped() {
+            super(null, null, false, false);
+        }
+    }
+}
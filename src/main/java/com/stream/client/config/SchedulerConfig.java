@@ -0,0 +1,23 @@
+package com.stream.client.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Schedulers of the pipeline stages that must not run on the Netty event loops. Joins run on
+ * the join engine's own per-shard threads; sink I/O stays on the event loops.
+ */
+@Configuration
+public class SchedulerConfig {
+
+    /**
+     * CPU-bound parsing of source payloads, bounded to the cores so it cannot crowd out I/O.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler parseScheduler(@Value("${stream-client.parse-threads}") int threads) {
+        return Schedulers.newParallel("parse", threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+}
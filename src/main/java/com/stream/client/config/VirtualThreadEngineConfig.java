@@ -0,0 +1,114 @@
+package com.stream.client.config;
+
+import com.stream.client.domain.port.BlockingSinkPort;
+import com.stream.client.domain.port.BlockingSourcePort;
+import com.stream.client.infrastructure.adapter.http.JdkHttpSinkAdapter;
+import com.stream.client.infrastructure.adapter.http.JdkHttpSourceAdapter;
+import com.stream.client.infrastructure.parser.SourceAJsonParser;
+import com.stream.client.infrastructure.parser.SourceBXmlParser;
+import com.stream.client.infrastructure.parser.SourceRecordParser;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP transport of the virtual-thread engine ({@code stream-client.engine: virtual-threads}):
+ * JDK {@link HttpClient}s running on virtual threads, sources and sink on separate clients so
+ * their connections do not compete, as in {@link WebClientConfig}. Clients and their executors
+ * are shut down with the context, once the engine using them has stopped.
+ */
+@Configuration
+@ConditionalOnProperty(name = "stream-client.engine", havingValue = "virtual-threads")
+public class VirtualThreadEngineConfig {
+
+    @Value("${stream-client.host}")
+    protected String HOST;
+
+    @Value("${stream-client.port}")
+    protected int PORT;
+
+    @Value("${stream-client.http.connect-timeout-ms}")
+    protected int CONNECT_TIMEOUT_MS;
+
+    @Value("${stream-client.source-mode}")
+    protected String SOURCE_MODE;
+
+    @Value("${stream-client.http.source.response-timeout-ms}")
+    protected long SOURCE_RESPONSE_TIMEOUT_MS;
+
+    @Value("${stream-client.http.sink.response-timeout-ms}")
+    protected long SINK_RESPONSE_TIMEOUT_MS;
+
+    @Value("${stream-client.source-reconnect-min-ms}")
+    protected long SOURCE_RECONNECT_MIN_MS;
+
+    @Value("${stream-client.source-reconnect-max-ms}")
+    protected long SOURCE_RECONNECT_MAX_MS;
+
+    // not beans, an Executor bean would replace Spring Boot's own task executor
+    private final List<ExecutorService> executors = new CopyOnWriteArrayList<>();
+
+    // close() would wait for source streams that never end
+    @Bean(destroyMethod = "shutdownNow")
+    public HttpClient sourceHttpClient() {
+        return httpClient();
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public HttpClient sinkHttpClient() {
+        return httpClient();
+    }
+
+    @Bean
+    public BlockingSourcePort blockingSourceA(@Qualifier("sourceHttpClient") HttpClient client, SourceAJsonParser parser) {
+        return source(client, "/source/a", parser);
+    }
+
+    @Bean
+    public BlockingSourcePort blockingSourceB(@Qualifier("sourceHttpClient") HttpClient client, SourceBXmlParser parser) {
+        return source(client, "/source/b", parser);
+    }
+
+    @Bean
+    public BlockingSinkPort blockingSink(@Qualifier("sinkHttpClient") HttpClient client) {
+        return new JdkHttpSinkAdapter(client, uri("/sink/a"), Duration.ofMillis(SINK_RESPONSE_TIMEOUT_MS));
+    }
+
+    /**
+     * Runs after the clients are shut down, this configuration being the factory they depend on.
+     */
+    @PreDestroy
+    void closeExecutors() {
+        executors.forEach(ExecutorService::shutdownNow);
+    }
+
+    private JdkHttpSourceAdapter source(HttpClient client, String path, SourceRecordParser parser) {
+        return new JdkHttpSourceAdapter(client, uri(path), parser, SOURCE_MODE, Duration.ofMillis(SOURCE_RESPONSE_TIMEOUT_MS),
+                Duration.ofMillis(SOURCE_RECONNECT_MIN_MS), Duration.ofMillis(SOURCE_RECONNECT_MAX_MS));
+    }
+
+    private HttpClient httpClient() {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        executors.add(executor);
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(CONNECT_TIMEOUT_MS))
+                .executor(executor)
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://" + HOST + ":" + PORT + path);
+    }
+}
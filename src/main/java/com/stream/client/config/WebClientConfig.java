@@ -1,17 +1,91 @@
 package com.stream.client.config;
 
+import com.stream.client.infrastructure.adapter.http.SinkPayloadEncoder;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
+
+/**
+ * HTTP transport for the fixture server. Sources and the sink get their own connection pools so
+ * a saturated sink cannot starve the readers (or the other way around). Pools publish Reactor
+ * Netty's {@code reactor.netty.connection.provider.*} metrics (active, idle, pending acquires)
+ * to the global Micrometer registry.
+ */
 @Configuration
 public class WebClientConfig {
 
+    @Value("${stream-client.host}")
+    protected String HOST;
+
+    @Value("${stream-client.port}")
+    protected int PORT;
+
+    @Value("${stream-client.http.connect-timeout-ms}")
+    protected int CONNECT_TIMEOUT_MS;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider sourceConnectionProvider(
+            @Value("${stream-client.http.source.max-connections}") int maxConnections,
+            @Value("${stream-client.http.source.pending-acquire-max-count}") int pendingAcquireMaxCount,
+            @Value("${stream-client.http.source.pending-acquire-timeout-ms}") long pendingAcquireTimeoutMs,
+            @Value("${stream-client.http.source.max-idle-time-ms}") long maxIdleTimeMs) {
+        return connectionProvider("sources", maxConnections, pendingAcquireMaxCount, pendingAcquireTimeoutMs, maxIdleTimeMs);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider sinkConnectionProvider(
+            @Value("${stream-client.http.sink.max-connections}") int maxConnections,
+            @Value("${stream-client.http.sink.pending-acquire-max-count}") int pendingAcquireMaxCount,
+            @Value("${stream-client.http.sink.pending-acquire-timeout-ms}") long pendingAcquireTimeoutMs,
+            @Value("${stream-client.http.sink.max-idle-time-ms}") long maxIdleTimeMs) {
+        return connectionProvider("sink", maxConnections, pendingAcquireMaxCount, pendingAcquireTimeoutMs, maxIdleTimeMs);
+    }
+
+    @Bean
+    public WebClient sourceWebClient(@Qualifier("sourceConnectionProvider") ConnectionProvider provider,
+                                     @Value("${stream-client.http.source.response-timeout-ms}") long responseTimeoutMs) {
+        return webClient(provider, responseTimeoutMs);
+    }
+
     @Bean
-    public WebClient webClient() {
+    public WebClient sinkWebClient(@Qualifier("sinkConnectionProvider") ConnectionProvider provider,
+                                   @Value("${stream-client.http.sink.response-timeout-ms}") long responseTimeoutMs) {
+        // records and batches are written without Jackson, see SinkPayloadEncoder
+        return webClient(provider, responseTimeoutMs).mutate()
+                .codecs(codecs -> codecs.customCodecs().register(new SinkPayloadEncoder()))
+                .build();
+    }
+
+    private WebClient webClient(ConnectionProvider provider, long responseTimeoutMs) {
+        HttpClient httpClient = HttpClient.create(provider)
+                .keepAlive(true)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, CONNECT_TIMEOUT_MS)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+
         return WebClient.builder()
-                .baseUrl("http://127.0.0.1:7299")
+                .baseUrl("http://" + HOST + ":" + PORT)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    private static ConnectionProvider connectionProvider(String name, int maxConnections, int pendingAcquireMaxCount,
+                                                         long pendingAcquireTimeoutMs, long maxIdleTimeMs) {
+        return ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .evictInBackground(Duration.ofMillis(maxIdleTimeMs))
+                .metrics(true)
                 .build();
     }
 }
@@ -0,0 +1,136 @@
+package com.stream.client.domain.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Objects;
+
+/**
+ * Id of a record, parsed once where it enters the client.
+ * <p>
+ * Ids are expected to be 32 lowercase hex characters and are then held as two longs: equality
+ * and hashing work on those, and the hex text is only rendered again when the id leaves the
+ * process (sink payloads, checkpoints, logs). Any other id is kept as the string it came as.
+ */
+public final class Id {
+
+    public static final int HEX_LENGTH = 32;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long hi;
+    private final long lo;
+    // the id as received when it is not canonical hex, otherwise null
+    private final String raw;
+
+    private Id(long hi, long lo, String raw) {
+        this.hi = hi;
+        this.lo = lo;
+        this.raw = raw;
+    }
+
+    /**
+     * The id whose hex form is {@code hi} followed by {@code lo}.
+     */
+    public static Id ofHex(long hi, long lo) {
+        return new Id(hi, lo, null);
+    }
+
+    public static Id of(String id) {
+        if (!isCanonical(id)) return new Id(0, 0, id);
+        return new Id(parseHex(id, 0), parseHex(id, HEX_LENGTH / 2), null);
+    }
+
+    /**
+     * @return the value of one lowercase hex digit, or -1
+     */
+    public static int hexDigit(int c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        return -1;
+    }
+
+    /**
+     * Whether the id is held as two longs, {@link #hi()} and {@link #lo()}.
+     */
+    public boolean isHex() {
+        return raw == null;
+    }
+
+    public long hi() {
+        return hi;
+    }
+
+    public long lo() {
+        return lo;
+    }
+
+    /**
+     * 64-bit hash spread over all bits, for hash tables, sharding and Bloom filters.
+     */
+    public long hash() {
+        if (raw == null) return hash(hi, lo);
+        // FNV-1a
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, n = raw.length(); i < n; i++) {
+            h = (h ^ raw.charAt(i)) * 0x100000001b3L;
+        }
+        return finish(h);
+    }
+
+    /**
+     * {@link #hash()} of the hex id {@code hi}, {@code lo}, for tables that keep ids unboxed.
+     */
+    public static long hash(long hi, long lo) {
+        // ids are hashes already but may share prefixes in tests
+        return finish(hi * 0x9E3779B97F4A7C15L ^ lo);
+    }
+
+    private static long finish(long h) {
+        // murmur3 finalizer
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Id other && hi == other.hi && lo == other.lo && Objects.equals(raw, other.raw);
+    }
+
+    @Override
+    public int hashCode() {
+        long h = hash();
+        return (int) (h ^ h >>> 32);
+    }
+
+    @JsonValue
+    @Override
+    public String toString() {
+        if (raw != null) return raw;
+        char[] chars = new char[HEX_LENGTH];
+        for (int i = 0; i < HEX_LENGTH / 2; i++) {
+            chars[i] = HEX[(int) (hi >>> (60 - 4 * i)) & 0xF];
+            chars[i + HEX_LENGTH / 2] = HEX[(int) (lo >>> (60 - 4 * i)) & 0xF];
+        }
+        return new String(chars);
+    }
+
+    private static boolean isCanonical(String id) {
+        if (id.length() != HEX_LENGTH) return false;
+        for (int i = 0; i < HEX_LENGTH; i++) {
+            if (hexDigit(id.charAt(i)) < 0) return false;
+        }
+        return true;
+    }
+
+    private static long parseHex(String id, int from) {
+        long value = 0;
+        for (int i = from; i < from + HEX_LENGTH / 2; i++) {
+            value = value << 4 | hexDigit(id.charAt(i));
+        }
+        return value;
+    }
+}
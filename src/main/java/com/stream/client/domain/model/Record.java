@@ -1,3 +1,3 @@
 package com.stream.client.domain.model;
 
-public record Record(String kind, String id) {}
+public record Record(String kind, Id id) {}
@@ -0,0 +1,8 @@
+package com.stream.client.domain.model;
+
+/**
+ * The two upstream sources whose records are joined.
+ */
+public enum Source {
+    A, B
+}
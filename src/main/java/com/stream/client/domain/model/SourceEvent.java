@@ -0,0 +1,22 @@
+package com.stream.client.domain.model;
+
+/**
+ * Typed outcome of reading one payload from a source.
+ */
+public sealed interface SourceEvent {
+
+    SourceEvent DONE = new Done();
+    SourceEvent EXHAUSTED = new Exhausted();
+
+    /** A well-formed record carrying the id to join on. */
+    record Valid(Id id) implements SourceEvent {}
+
+    /** A payload that could not be read as a record; {@code reason} says why. */
+    record Defective(String reason) implements SourceEvent {}
+
+    /** Well-formed "done" marker without an id. */
+    record Done() implements SourceEvent {}
+
+    /** The source has nothing else at the moment; ends the stream. */
+    record Exhausted() implements SourceEvent {}
+}
@@ -0,0 +1,23 @@
+package com.stream.client.domain.port;
+
+import com.stream.client.domain.model.Record;
+
+import java.util.List;
+
+/**
+ * Thread-per-call counterpart of {@link SinkPort}: both calls return once the sink accepted the
+ * records and fail with the same exceptions.
+ */
+public interface BlockingSinkPort {
+
+    void sendRecord(Record record) throws InterruptedException;
+
+    /**
+     * Submit several records in one call. Fails with {@link SinkBatchRefusedException} when
+     * the sink does not accept batches, in which case records must be sent one by one, minus
+     * those it reports as already accepted, and
+     * with {@link SinkPayloadTooLargeException} when this batch is too large, in which case it
+     * must be split.
+     */
+    void sendBatch(List<Record> records) throws InterruptedException;
+}
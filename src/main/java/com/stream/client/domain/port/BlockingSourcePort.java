@@ -0,0 +1,20 @@
+package com.stream.client.domain.port;
+
+import com.stream.client.domain.model.SourceEvent;
+
+/**
+ * Thread-per-source counterpart of {@link SourcePort}, for callers that may block.
+ */
+public interface BlockingSourcePort {
+
+    /**
+     * Read from the source until it reports it is exhausted, handing every event to
+     * {@code events} on the calling thread; {@code events} may block to slow the reader down.
+     */
+    void readAll(EventHandler events) throws InterruptedException;
+
+    @FunctionalInterface
+    interface EventHandler {
+        void accept(SourceEvent event) throws InterruptedException;
+    }
+}
@@ -0,0 +1,23 @@
+package com.stream.client.domain.port;
+
+/**
+ * The sink takes records one by one but not as a batch. Not a failure: the same records are
+ * expected to go through one by one, except the first {@link #accepted()} ones, which the adapter
+ * already sent alone to tell a refused batch from a failing sink.
+ */
+public class SinkBatchRefusedException extends RuntimeException {
+
+    private final int accepted;
+
+    public SinkBatchRefusedException(String message, int accepted, Throwable cause) {
+        super(message, cause);
+        this.accepted = accepted;
+    }
+
+    /**
+     * @return how many leading records of the batch the sink already accepted
+     */
+    public int accepted() {
+        return accepted;
+    }
+}
@@ -0,0 +1,12 @@
+package com.stream.client.domain.port;
+
+/**
+ * The sink will not take records until the client has read from a source (HTTP 406). Not a
+ * failure: the same records are expected to go through once the readers have made progress.
+ */
+public class SinkDeferredException extends RuntimeException {
+
+    public SinkDeferredException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,12 @@
+package com.stream.client.domain.port;
+
+/**
+ * The sink refused a batch as too large (HTTP 413). Not a failure: the same records are expected
+ * to go through in smaller batches.
+ */
+public class SinkPayloadTooLargeException extends RuntimeException {
+
+    public SinkPayloadTooLargeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -3,6 +3,21 @@ package com.stream.client.domain.port;
 import reactor.core.publisher.Mono;
 import com.stream.client.domain.model.Record;
 
+import java.util.List;
+
+/**
+ * Both calls fail with {@link SinkDeferredException} while the sink waits for the client to read
+ * from a source first.
+ */
 public interface SinkPort {
     Mono<Void> sendRecord(Record record);
+
+    /**
+     * Submit several records in one call. Fails with {@link SinkBatchRefusedException} when
+     * the sink does not accept batches, in which case records must be sent one by one, minus
+     * those it reports as already accepted, and
+     * with {@link SinkPayloadTooLargeException} when this batch is too large, in which case it
+     * must be split.
+     */
+    Mono<Void> sendBatch(List<Record> records);
 }
@@ -1,7 +1,8 @@
 package com.stream.client.domain.port;
 
+import com.stream.client.domain.model.SourceEvent;
 import reactor.core.publisher.Flux;
 
 public interface SourcePort {
-    Flux<String> streamRecords();
+    Flux<SourceEvent> streamRecords();
 }
@@ -0,0 +1,152 @@
+package com.stream.client.infrastructure.adapter.http;
+
+import com.stream.client.domain.model.SourceEvent;
+import com.stream.client.domain.port.SourcePort;
+import com.stream.client.infrastructure.parser.LineDelimitedReader;
+import com.stream.client.infrastructure.parser.SourceRecordParser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reads one HTTP source, either as a long-lived newline-delimited stream or by polling one
+ * record per request.
+ * <p>
+ * In {@link Mode#AUTO} the first request asks for NDJSON; if the server answers with a streamed
+ * body (an NDJSON or event-stream content type) the connection is kept and decoded line by
+ * line, reconnecting when the body ends. Any other successful answer is a single record and
+ * switches the source to pipelined polling through the {@link PollingEngine} for the rest of the
+ * run. Only a successful answer decides: a refused connection, a non-2xx answer or a dropped
+ * stream is retried with exponential backoff between {@code SOURCE_RECONNECT_MIN_MS} and
+ * {@code SOURCE_RECONNECT_MAX_MS}.
+ * <p>
+ * Either way payloads are parsed on the {@link ParseStage}'s threads, not on the event loop, in
+ * the pooled Netty buffers they were received in; every buffer is released once parsed.
+ */
+@Slf4j
+abstract class HttpSourceAdapter implements SourcePort {
+
+    enum Mode { AUTO, STREAM, POLL }
+
+    private final WebClient webClient;
+    private final String path;
+    private final SourceRecordParser parser;
+    private final PollingEngine pollingEngine;
+    private final ParseStage.Lane parseLane;
+    private final Mode mode;
+
+    @Value("${stream-client.source-reconnect-min-ms}")
+    protected long SOURCE_RECONNECT_MIN_MS;
+
+    @Value("${stream-client.source-reconnect-max-ms}")
+    protected long SOURCE_RECONNECT_MAX_MS;
+
+    protected HttpSourceAdapter(WebClient webClient, String path, SourceRecordParser parser,
+                                PollingEngine pollingEngine, ParseStage parseStage, String mode) {
+        this.webClient = webClient;
+        this.path = path;
+        this.parser = parser;
+        this.pollingEngine = pollingEngine;
+        this.parseLane = parseStage.lane(path);
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+    }
+
+    @Override
+    public Flux<SourceEvent> streamRecords() {
+        Flux<SourceEvent> events = mode == Mode.POLL ? poll() : Flux.defer(() -> {
+            AtomicBoolean polling = new AtomicBoolean();
+            return Flux.defer(() -> openStream(polling))
+                    // server streams: re-open when a body ends, never faster than the minimum backoff
+                    .repeatWhen(ends -> ends.takeWhile(end -> !polling.get())
+                            .delayElements(Duration.ofMillis(SOURCE_RECONNECT_MIN_MS)))
+                    // refused, non-2xx or dropped: try again, the backoff resets once records flow
+                    .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(SOURCE_RECONNECT_MIN_MS))
+                            .maxBackoff(Duration.ofMillis(SOURCE_RECONNECT_MAX_MS))
+                            .transientErrors(true)
+                            .doBeforeRetry(signal -> log.warn("Stream from {} failed, reconnecting: {}",
+                                    path, signal.failure().getMessage())))
+                    .concatWith(Flux.defer(this::poll)); // server answered a single record
+        });
+        return events.takeUntil(event -> event instanceof SourceEvent.Exhausted);
+    }
+
+    /**
+     * One request in stream mode; sets {@code polling} when a successful answer turned out to be
+     * a single record. Failures are signalled as errors and leave the mode undecided.
+     */
+    private Flux<SourceEvent> openStream(AtomicBoolean polling) {
+        return webClient.get()
+                .uri(path)
+                .accept(MediaType.APPLICATION_NDJSON, MediaType.ALL)
+                .exchangeToFlux(response -> {
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return response.createException().<SourceEvent>flatMapMany(Flux::error);
+                    }
+                    if (mode == Mode.STREAM || isStreamed(response)) {
+                        return readLines(response.bodyToFlux(DataBuffer.class));
+                    }
+                    log.info("{} delivers single records, polling", path);
+                    polling.set(true);
+                    return parse(DataBufferUtils.join(response.bodyToFlux(DataBuffer.class)).flux());
+                });
+    }
+
+    private Flux<SourceEvent> readLines(Flux<DataBuffer> body) {
+        return Flux.defer(() -> {
+            LineDelimitedReader reader = new LineDelimitedReader(parser);
+            Flux<SourceEvent> lines = parseLane.parse(body, chunk -> {
+                try {
+                    return reader.read(chunk);
+                } finally {
+                    DataBufferUtils.release(chunk);
+                }
+            });
+            return lines.concatWith(Flux.defer(() -> Flux.fromIterable(reader.finish())));
+        });
+    }
+
+    /**
+     * Only the content type tells a stream from a single record: a one-record answer may well be
+     * chunked, and so come without a Content-Length.
+     */
+    private static boolean isStreamed(ClientResponse response) {
+        MediaType contentType = response.headers().contentType().orElse(null);
+        return contentType != null && (MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                || MediaType.TEXT_EVENT_STREAM.isCompatibleWith(contentType));
+    }
+
+    private Flux<SourceEvent> poll() {
+        return pollingEngine.poll(() -> {
+            // the body joined into one pooled buffer instead of being copied to a byte[]
+            Flux<DataBuffer> body = webClient.get()
+                    .uri(path)
+                    .retrieve()
+                    .bodyToFlux(DataBuffer.class);
+            return parse(DataBufferUtils.join(body).flux()).next();
+        });
+    }
+
+    /**
+     * Parse whole payloads in the pooled buffers they arrived in; only the id is copied out.
+     */
+    private Flux<SourceEvent> parse(Flux<DataBuffer> payloads) {
+        return parseLane.parse(payloads, payload -> {
+            try {
+                return List.of(parser.parse(payload));
+            } finally {
+                DataBufferUtils.release(payload);
+            }
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package com.stream.client.infrastructure.adapter.http;
+
+import com.stream.client.domain.model.Record;
+import com.stream.client.domain.port.BlockingSinkPort;
+import com.stream.client.domain.port.SinkBatchRefusedException;
+import com.stream.client.domain.port.SinkDeferredException;
+import com.stream.client.domain.port.SinkPayloadTooLargeException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link SinkAdapter} on the JDK {@link HttpClient}, blocking the calling (virtual) thread.
+ * Payloads are written by the same {@link SinkPayloadEncoder}, into a heap buffer.
+ */
+@Slf4j
+public class JdkHttpSinkAdapter implements BlockingSinkPort {
+
+    private final HttpClient client;
+    private final URI uri;
+    private final SinkPayloadEncoder encoder = new SinkPayloadEncoder();
+    private final Duration responseTimeout;
+
+    private final AtomicBoolean batchesAccepted = new AtomicBoolean(true);
+    // an array went through once: a 5xx is then an outage, never a refusal of arrays
+    private final AtomicBoolean batchesConfirmed = new AtomicBoolean();
+    private final AtomicInteger arrayServerErrors = new AtomicInteger();
+
+    public JdkHttpSinkAdapter(HttpClient client, URI uri, Duration responseTimeout) {
+        this.client = client;
+        this.uri = uri;
+        this.responseTimeout = responseTimeout;
+    }
+
+    @Override
+    public void sendRecord(Record record) throws InterruptedException {
+        int status = post(record);
+        if (status / 100 != 2) throw failure(status);
+    }
+
+    /**
+     * Posts the records as one JSON array. The first rejection of an array body switches
+     * the adapter to per-record mode for the rest of the run; a 413 leaves batching on and
+     * asks the caller to split the batch. Repeated 5xx answers from a sink that never took an
+     * array are checked with the first record alone, as in {@link SinkAdapter#sendBatch}.
+     */
+    @Override
+    public void sendBatch(List<Record> records) throws InterruptedException {
+        if (!batchesAccepted.get()) throw new SinkBatchRefusedException("sink does not accept batches", 0, null);
+
+        int status = post(records);
+        if (status / 100 == 2) {
+            batchesConfirmed.set(true);
+            arrayServerErrors.set(0);
+            return;
+        }
+        if (status == 413) {
+            throw new SinkPayloadTooLargeException("sink refused a batch of " + records.size() + " records as too large", null);
+        }
+        if (SinkAdapter.BATCH_REJECTIONS.contains(status)) throw batchesRefused(status, 0);
+        if (status / 100 != 5 || batchesConfirmed.get()
+                || arrayServerErrors.incrementAndGet() < SinkAdapter.SERVER_ERRORS_BEFORE_PROBE) {
+            throw failure(status);
+        }
+        arrayServerErrors.set(0);
+        int probe = post(records.get(0));
+        if (probe == 406) throw failure(probe);
+        // refused alone as well: the sink is failing, not refusing arrays
+        if (probe / 100 != 2) throw failure(status);
+        throw batchesRefused(status, 1);
+    }
+
+    private SinkBatchRefusedException batchesRefused(int status, int accepted) {
+        if (batchesAccepted.compareAndSet(true, false)) {
+            log.warn("Sink rejected a batch with {}, falling back to per-record posts", status);
+        }
+        return new SinkBatchRefusedException("sink does not accept batches", accepted, null);
+    }
+
+    /**
+     * @param body a {@link Record} or a {@code List<Record>}
+     */
+    private int post(Object body) throws InterruptedException {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(responseTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(encode(body)))
+                    .build();
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Sink request failed", e);
+        }
+    }
+
+    private byte[] encode(Object body) {
+        DataBuffer buffer = encoder.encodeValue(body, DefaultDataBufferFactory.sharedInstance,
+                ResolvableType.forInstance(body), MimeTypeUtils.APPLICATION_JSON, Map.of());
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        return bytes;
+    }
+
+    // 406: the sink wants the client to read from a source before it takes more records
+    private static RuntimeException failure(int status) {
+        if (status == 406) return new SinkDeferredException("sink asks to read from a source first", null);
+        return new IllegalStateException("Sink answered " + status);
+    }
+}
@@ -0,0 +1,136 @@
+package com.stream.client.infrastructure.adapter.http;
+
+import com.stream.client.domain.model.SourceEvent;
+import com.stream.client.domain.port.BlockingSourcePort;
+import com.stream.client.infrastructure.parser.LineDelimitedReader;
+import com.stream.client.infrastructure.parser.SourceRecordParser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Reads one HTTP source with the JDK {@link HttpClient} on the calling (virtual) thread.
+ * <p>
+ * Follows {@link HttpSourceAdapter}: in {@code AUTO} mode a streamed answer is read line by line
+ * and re-opened when its body ends, a single-record answer switches the source to polling, one
+ * request at a time, for the rest of the run. A refused or failed request, or an empty poll,
+ * is retried after a pause that starts at the reconnect minimum and doubles up to its maximum;
+ * an answer with records resets it, and a stream that ended is re-opened after the minimum.
+ */
+@Slf4j
+public class JdkHttpSourceAdapter implements BlockingSourcePort {
+
+    private static final int CHUNK_BYTES = 1 << 16;
+
+    private final HttpClient client;
+    private final URI uri;
+    private final SourceRecordParser parser;
+    private final HttpSourceAdapter.Mode mode;
+    private final Duration responseTimeout;
+    private final long reconnectMinMs;
+    private final long reconnectMaxMs;
+
+    public JdkHttpSourceAdapter(HttpClient client, URI uri, SourceRecordParser parser, String mode,
+                                Duration responseTimeout, Duration reconnectMin, Duration reconnectMax) {
+        this.client = client;
+        this.uri = uri;
+        this.parser = parser;
+        this.mode = HttpSourceAdapter.Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.responseTimeout = responseTimeout;
+        this.reconnectMinMs = reconnectMin.toMillis();
+        this.reconnectMaxMs = reconnectMax.toMillis();
+    }
+
+    @Override
+    public void readAll(EventHandler events) throws InterruptedException {
+        boolean stream = mode != HttpSourceAdapter.Mode.POLL;
+        long pauseMs = reconnectMinMs;
+        while (true) {
+            try {
+                HttpResponse<InputStream> response = client.send(request(stream), HttpResponse.BodyHandlers.ofInputStream());
+                try (InputStream body = response.body()) {
+                    if (response.statusCode() / 100 != 2) {
+                        log.debug("{} answered {}, retrying in {} ms", uri.getPath(), response.statusCode(), pauseMs);
+                        pauseMs = backOff(pauseMs);
+                        continue;
+                    }
+                    if (stream && mode == HttpSourceAdapter.Mode.AUTO && !isStreamed(response)) {
+                        log.info("{} delivers single records, polling", uri.getPath());
+                        stream = false;
+                    }
+                    if (stream) {
+                        if (readLines(body, events)) return;
+                        pauseMs = reconnectMinMs;
+                        Thread.sleep(pauseMs);
+                        continue;
+                    }
+                    byte[] payload = body.readAllBytes();
+                    // an empty answer carries no record, like a failed poll
+                    if (payload.length == 0) {
+                        pauseMs = backOff(pauseMs);
+                        continue;
+                    }
+                    pauseMs = reconnectMinMs;
+                    if (emit(parser.parse(payload), events)) return;
+                }
+            } catch (IOException e) {
+                log.warn("Read from {} failed, retrying in {} ms: {}", uri.getPath(), pauseMs, e.getMessage());
+                pauseMs = backOff(pauseMs);
+            }
+        }
+    }
+
+    /**
+     * Sleep for {@code pauseMs}.
+     *
+     * @return the pause before the next attempt, should it fail too
+     */
+    private long backOff(long pauseMs) throws InterruptedException {
+        Thread.sleep(pauseMs);
+        return Math.min(reconnectMaxMs, pauseMs * 2);
+    }
+
+    private HttpRequest request(boolean stream) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(responseTimeout)
+                .header("Accept", stream ? "application/x-ndjson, */*" : "*/*")
+                .GET()
+                .build();
+    }
+
+    /**
+     * @return whether the source reported it is exhausted
+     */
+    private boolean readLines(InputStream body, EventHandler events) throws IOException, InterruptedException {
+        LineDelimitedReader reader = new LineDelimitedReader(parser);
+        byte[] chunk = new byte[CHUNK_BYTES];
+        for (int read; (read = body.read(chunk)) >= 0; ) {
+            for (SourceEvent event : reader.read(DefaultDataBufferFactory.sharedInstance.wrap(ByteBuffer.wrap(chunk, 0, read)))) {
+                if (emit(event, events)) return true;
+            }
+        }
+        for (SourceEvent event : reader.finish()) {
+            if (emit(event, events)) return true;
+        }
+        return false;
+    }
+
+    private static boolean emit(SourceEvent event, EventHandler events) throws InterruptedException {
+        events.accept(event);
+        return event instanceof SourceEvent.Exhausted;
+    }
+
+    private static boolean isStreamed(HttpResponse<?> response) {
+        String contentType = response.headers().firstValue("Content-Type").orElse("").toLowerCase(Locale.ROOT);
+        return contentType.startsWith("application/x-ndjson") || contentType.startsWith("text/event-stream");
+    }
+}
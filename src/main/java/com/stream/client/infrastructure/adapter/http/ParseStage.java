@@ -0,0 +1,84 @@
+package com.stream.client.infrastructure.adapter.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Hands source payloads from the event loop that received them to the bounded parse scheduler.
+ * <p>
+ * Each source path gets a {@link Lane}: payloads of one subscription keep their order, which the
+ * carry-over of a line-delimited body relies on, while separate subscriptions (sources,
+ * concurrent polls) land on different parse threads. Payloads received and not parsed yet are
+ * exported as {@code stream.stage.queue.depth{stage=parse}}; together with the join shards'
+ * {@code stream.join.queue.depth} and the sink's {@code stream.sink.limit.waiting} this shows
+ * which stage work piles up in front of.
+ */
+@Component
+class ParseStage {
+
+    private final Scheduler scheduler;
+    private final int prefetch;
+    private final MeterRegistry registry;
+
+    ParseStage(@Qualifier("parseScheduler") Scheduler scheduler,
+               @Value("${stream-client.parse-prefetch}") int prefetch,
+               MeterRegistry registry) {
+        this.scheduler = scheduler;
+        this.prefetch = prefetch;
+        this.registry = registry;
+    }
+
+    Lane lane(String path) {
+        AtomicInteger depth = new AtomicInteger();
+        Gauge.builder("stream.stage.queue.depth", depth, AtomicInteger::get)
+                .description("Items received by a stage and not processed yet")
+                .tag("stage", "parse")
+                .tag("path", path)
+                .register(registry);
+        return new Lane(depth);
+    }
+
+    final class Lane {
+
+        private final AtomicInteger depth;
+
+        private Lane(AtomicInteger depth) {
+            this.depth = depth;
+        }
+
+        /**
+         * Apply {@code parser} to every payload on a parse thread. Payloads still queued when the
+         * subscription is cancelled leave the depth count and, if pooled buffers, are released
+         * here. They are queued wrapped, so that buffers discarded further upstream, never
+         * counted, are told apart.
+         */
+        <T, R> Flux<R> parse(Flux<T> payloads, Function<T, Iterable<R>> parser) {
+            return payloads
+                    .map(payload -> {
+                        depth.incrementAndGet();
+                        return new Queued<>(payload);
+                    })
+                    .publishOn(scheduler, prefetch)
+                    .concatMapIterable(queued -> {
+                        depth.decrementAndGet();
+                        return parser.apply(queued.payload());
+                    })
+                    .doOnDiscard(Queued.class, queued -> {
+                        depth.decrementAndGet();
+                        if (queued.payload() instanceof DataBuffer buffer) DataBufferUtils.release(buffer);
+                    });
+        }
+    }
+
+    private record Queued<T>(T payload) {}
+}
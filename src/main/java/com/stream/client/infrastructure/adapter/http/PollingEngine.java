@@ -0,0 +1,136 @@
+package com.stream.client.infrastructure.adapter.http;
+
+import com.stream.client.domain.model.SourceEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Pipelined polling for sources that hand out one record per request.
+ * <p>
+ * Keeps a window of requests in flight per subscription and sizes it AIMD-style: every record
+ * grows the window by one, while an empty answer, an error or "nothing else at the moment" halves
+ * it. An empty or failed answer also pauses polling, first for {@code SOURCE_RECONNECT_MIN_MS},
+ * doubling up to {@code SOURCE_RECONNECT_MAX_MS} while answers keep failing, like the blocking
+ * {@link JdkHttpSourceAdapter}; a record resets the pause. Requests are only issued against
+ * downstream demand, so a slow consumer pauses polling.
+ * Once the source reports it is exhausted no new request is issued; the responses still in flight
+ * are emitted first and the {@link SourceEvent.Exhausted} event comes last, keeping end-of-stream
+ * detection with {@code takeUntil} intact.
+ */
+@Component
+class PollingEngine {
+
+    // stands in for an empty or failed response, never emitted
+    private static final SourceEvent NO_RESPONSE = new SourceEvent.Defective("no response");
+
+    private final int minWindow;
+    private final int maxWindow;
+    private final long minPauseMs;
+    private final long maxPauseMs;
+
+    PollingEngine(@Value("${stream-client.poll-window-min}") int minWindow,
+                  @Value("${stream-client.poll-window-max}") int maxWindow,
+                  @Value("${stream-client.source-reconnect-min-ms}") long minPauseMs,
+                  @Value("${stream-client.source-reconnect-max-ms}") long maxPauseMs) {
+        if (minWindow < 1 || maxWindow < minWindow) {
+            throw new IllegalArgumentException("poll window must satisfy 1 <= min <= max");
+        }
+        this.minWindow = minWindow;
+        this.maxWindow = maxWindow;
+        this.minPauseMs = minPauseMs;
+        this.maxPauseMs = Math.max(minPauseMs, maxPauseMs);
+    }
+
+    /**
+     * @param request issues one poll; may complete empty or with an error
+     */
+    Flux<SourceEvent> poll(Supplier<Mono<SourceEvent>> request) {
+        return Flux.create(sink -> {
+            Session session = new Session(sink, request);
+            sink.onDispose(session::stop);
+            sink.onRequest(session::demand);
+        }, FluxSink.OverflowStrategy.BUFFER);
+    }
+
+    private final class Session {
+
+        private final FluxSink<SourceEvent> sink;
+        private final Supplier<Mono<SourceEvent>> request;
+
+        private long requested;
+        private int inFlight;
+        private int window = minWindow;
+        // the next pause after an empty or failed answer
+        private long pauseMs = minPauseMs;
+        private boolean paused;
+        private boolean exhausted;
+        private boolean stopped;
+
+        Session(FluxSink<SourceEvent> sink, Supplier<Mono<SourceEvent>> request) {
+            this.sink = sink;
+            this.request = request;
+        }
+
+        synchronized void demand(long n) {
+            requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+            fill();
+        }
+
+        synchronized void stop() {
+            stopped = true;
+        }
+
+        private void fill() {
+            while (!stopped && !paused && !exhausted && inFlight < window && inFlight < requested) {
+                inFlight++;
+                request.get()
+                        .onErrorResume(e -> Mono.empty())
+                        .defaultIfEmpty(NO_RESPONSE)
+                        .subscribe(this::onResponse);
+            }
+        }
+
+        private synchronized void onResponse(SourceEvent event) {
+            inFlight--;
+            if (stopped) return;
+
+            if (event == NO_RESPONSE) {
+                window = Math.max(minWindow, window / 2);
+                // answers of requests already in flight do not lengthen the pause under way
+                if (!paused) {
+                    paused = true;
+                    Schedulers.parallel().schedule(this::resume, pauseMs, TimeUnit.MILLISECONDS);
+                    pauseMs = Math.min(maxPauseMs, pauseMs * 2);
+                }
+            } else if (event instanceof SourceEvent.Exhausted) {
+                window = Math.max(minWindow, window / 2);
+                exhausted = true;
+            } else {
+                window = Math.min(maxWindow, window + 1);
+                pauseMs = minPauseMs;
+                requested--;
+                sink.next(event);
+            }
+
+            if (exhausted && inFlight == 0) {
+                stopped = true;
+                sink.next(SourceEvent.EXHAUSTED);
+                sink.complete();
+                return;
+            }
+            fill();
+        }
+
+        private synchronized void resume() {
+            paused = false;
+            fill();
+        }
+    }
+}
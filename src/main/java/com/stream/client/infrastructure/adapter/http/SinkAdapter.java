@@ -1,24 +1,117 @@
 package com.stream.client.infrastructure.adapter.http;
 
+import com.stream.client.domain.port.SinkBatchRefusedException;
+import com.stream.client.domain.port.SinkDeferredException;
+import com.stream.client.domain.port.SinkPayloadTooLargeException;
 import com.stream.client.domain.port.SinkPort;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 import com.stream.client.domain.model.Record;
 
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class SinkAdapter implements SinkPort {
 
+    // answers meaning the sink does not understand a JSON array body; a 413 only refuses its size
+    static final Set<Integer> BATCH_REJECTIONS = Set.of(400, 404, 405, 415, 422);
+
+    // 5xx answers in a row to arrays, from a sink that never took one, before a single record probes it
+    static final int SERVER_ERRORS_BEFORE_PROBE = 2;
+
+    // declared element type, so SinkPayloadEncoder rather than Jackson writes the array
+    static final ParameterizedTypeReference<List<Record>> RECORDS = new ParameterizedTypeReference<>() {};
+
     private final WebClient webClient;
 
+    private final AtomicBoolean batchesAccepted = new AtomicBoolean(true);
+    // an array went through once: a 5xx is then an outage, never a refusal of arrays
+    private final AtomicBoolean batchesConfirmed = new AtomicBoolean();
+    private final AtomicInteger arrayServerErrors = new AtomicInteger();
+
+    public SinkAdapter(@Qualifier("sinkWebClient") WebClient webClient) {
+        this.webClient = webClient;
+    }
+
     @Override
     public Mono<Void> sendRecord(Record record) {
         return webClient.post()
                 .uri("/sink/a")
                 .bodyValue(record)
                 .retrieve()
-                .bodyToMono(Void.class);
+                .bodyToMono(Void.class)
+                .onErrorMap(SinkAdapter::isDeferral, SinkAdapter::deferral);
+    }
+
+    /**
+     * Posts the records as one JSON array. The first rejection of an array body switches
+     * the adapter to per-record mode for the rest of the run; a 413 leaves batching on and
+     * asks the caller to split the batch.
+     * <p>
+     * A sink may also refuse arrays with a 5xx. Until one array went through, repeated 5xx
+     * answers make the adapter post the first record alone: if the sink takes it, arrays are
+     * what it refuses and the adapter switches to per-record mode as well, otherwise the sink is
+     * failing and the batch fails with the array's error.
+     */
+    @Override
+    public Mono<Void> sendBatch(List<Record> records) {
+        if (!batchesAccepted.get()) return Mono.error(new SinkBatchRefusedException("sink does not accept batches", 0, null));
+
+        return webClient.post()
+                .uri("/sink/a")
+                .bodyValue(records, RECORDS)
+                .retrieve()
+                .bodyToMono(Void.class)
+                .doOnSuccess(ok -> {
+                    batchesConfirmed.set(true);
+                    arrayServerErrors.set(0);
+                })
+                .onErrorMap(SinkAdapter::isDeferral, SinkAdapter::deferral)
+                .onErrorMap(SinkAdapter::isTooLarge, e -> new SinkPayloadTooLargeException(
+                        "sink refused a batch of " + records.size() + " records as too large", e))
+                .onErrorResume(WebClientResponseException.class, e -> rejected(records, e));
+    }
+
+    private Mono<Void> rejected(List<Record> records, WebClientResponseException e) {
+        int status = e.getStatusCode().value();
+        if (BATCH_REJECTIONS.contains(status)) return Mono.error(batchesRefused(status, 0, e));
+        if (!e.getStatusCode().is5xxServerError() || batchesConfirmed.get()
+                || arrayServerErrors.incrementAndGet() < SERVER_ERRORS_BEFORE_PROBE) {
+            return Mono.error(e);
+        }
+        arrayServerErrors.set(0);
+        return sendRecord(records.get(0))
+                // refused alone as well: the sink is failing, not refusing arrays
+                .onErrorMap(probe -> probe instanceof SinkDeferredException ? probe : e)
+                .then(Mono.error(() -> batchesRefused(status, 1, e)));
+    }
+
+    private SinkBatchRefusedException batchesRefused(int status, int accepted, Throwable cause) {
+        if (batchesAccepted.compareAndSet(true, false)) {
+            log.warn("Sink rejected a batch with {}, falling back to per-record posts", status);
+        }
+        return new SinkBatchRefusedException("sink does not accept batches", accepted, cause);
+    }
+
+    // 406: the sink wants the client to read from a source before it takes more records
+    private static boolean isDeferral(Throwable e) {
+        return e instanceof WebClientResponseException response && response.getStatusCode().value() == 406;
+    }
+
+    private static boolean isTooLarge(Throwable e) {
+        return e instanceof WebClientResponseException response && response.getStatusCode().value() == 413;
+    }
+
+    private static Throwable deferral(Throwable e) {
+        return new SinkDeferredException("sink asks to read from a source first", e);
     }
 }
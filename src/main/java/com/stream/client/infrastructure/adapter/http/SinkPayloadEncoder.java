@@ -0,0 +1,139 @@
+package com.stream.client.infrastructure.adapter.http;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Record;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes sink payloads, a {@link Record} or a {@code List<Record>}, as JSON straight into a
+ * buffer of the request's factory, which is Netty's pooled allocator on the sink client.
+ * <p>
+ * The output is what Jackson writes for the same value ({@code {"kind":"joined","id":"…"}}),
+ * without going through an {@code ObjectMapper} per request: the known kinds are constant byte
+ * prefixes and hex ids are written from their two longs. Registered on the sink
+ * {@code WebClient} ahead of the Jackson encoder; a {@code List} is only taken when its element
+ * type is declared, see {@link SinkAdapter#RECORDS}.
+ */
+public class SinkPayloadEncoder extends AbstractEncoder<Object> {
+
+    private static final byte[] JOINED = ascii("{\"kind\":\"joined\",\"id\":\"");
+    private static final byte[] ORPHANED = ascii("{\"kind\":\"orphaned\",\"id\":\"");
+    private static final byte[] KIND = ascii("{\"kind\":\"");
+    private static final byte[] ID = ascii("\",\"id\":\"");
+    private static final byte[] END = ascii("\"}");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    // a record with a hex id and the longer of the two prefixes, plus the comma in an array
+    private static final int RECORD_SIZE = ORPHANED.length + Id.HEX_LENGTH + END.length + 1;
+
+    public SinkPayloadEncoder() {
+        super(MimeTypeUtils.APPLICATION_JSON);
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        if (!super.canEncode(elementType, mimeType)) return false;
+        Class<?> type = elementType.toClass();
+        if (type == Record.class) return true;
+        return List.class.isAssignableFrom(type) && elementType.asCollection().getGeneric(0).toClass() == Record.class;
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        return Flux.from(inputStream).map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints));
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory,
+                                  ResolvableType valueType, MimeType mimeType, Map<String, Object> hints) {
+        int capacity = value instanceof List<?> records ? 2 + records.size() * RECORD_SIZE : RECORD_SIZE;
+        DataBuffer buffer = bufferFactory.allocateBuffer(capacity);
+        try {
+            if (value instanceof Record record) {
+                write(buffer, record);
+            } else {
+                writeArray(buffer, (List<?>) value);
+            }
+            return buffer;
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            throw e;
+        }
+    }
+
+    private static void writeArray(DataBuffer buffer, List<?> records) {
+        buffer.write((byte) '[');
+        for (int i = 0, n = records.size(); i < n; i++) {
+            if (i > 0) buffer.write((byte) ',');
+            write(buffer, (Record) records.get(i));
+        }
+        buffer.write((byte) ']');
+    }
+
+    private static void write(DataBuffer buffer, Record record) {
+        switch (record.kind()) {
+            case "joined" -> buffer.write(JOINED);
+            case "orphaned" -> buffer.write(ORPHANED);
+            default -> {
+                buffer.write(KIND);
+                writeString(buffer, record.kind());
+                buffer.write(ID);
+            }
+        }
+        Id id = record.id();
+        if (id.isHex()) {
+            writeHex(buffer, id.hi());
+            writeHex(buffer, id.lo());
+        } else {
+            writeString(buffer, id.toString());
+        }
+        buffer.write(END);
+    }
+
+    private static void writeHex(DataBuffer buffer, long value) {
+        for (int shift = 60; shift >= 0; shift -= 4) {
+            buffer.write(HEX[(int) (value >>> shift) & 0xF]);
+        }
+    }
+
+    /**
+     * The contents of a JSON string, escaped the way Jackson does by default.
+     */
+    private static void writeString(DataBuffer buffer, String value) {
+        int from = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+            if (i > from) buffer.write(value.substring(from, i), StandardCharsets.UTF_8);
+            switch (c) {
+                case '"' -> buffer.write(ascii("\\\""));
+                case '\\' -> buffer.write(ascii("\\\\"));
+                case '\n' -> buffer.write(ascii("\\n"));
+                case '\r' -> buffer.write(ascii("\\r"));
+                case '\t' -> buffer.write(ascii("\\t"));
+                case '\b' -> buffer.write(ascii("\\b"));
+                case '\f' -> buffer.write(ascii("\\f"));
+                default -> buffer.write(ascii(String.format("\\u%04X", (int) c)));
+            }
+            from = i + 1;
+        }
+        if (from < value.length()) buffer.write(value.substring(from), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -1,30 +1,19 @@
 package com.stream.client.infrastructure.adapter.http;
 
-import com.stream.client.domain.port.SourcePort;
-import lombok.RequiredArgsConstructor;
+import com.stream.client.infrastructure.parser.SourceBXmlParser;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
-
-import java.time.Duration;
 
 @Component("sourceBAdapter")
-@RequiredArgsConstructor
-public class SourceBAdapter implements SourcePort {
-
-    private final WebClient webClient;
+public class SourceBAdapter extends HttpSourceAdapter {
 
-    public Flux<String> streamRecords() {
-        return Flux.defer(() ->
-                        webClient.get()
-                                .uri("/source/b")
-                                .retrieve()
-                                .bodyToMono(String.class)
-                                .onErrorResume(e -> Mono.empty())
-                )
-                .repeat() // keeps calling until completion
-                .delayElements(Duration.ofMillis(1)) // short delay between requests
-                .takeUntil(response -> response.contains("nothing else at the moment"));
+    public SourceBAdapter(@Qualifier("sourceWebClient") WebClient webClient,
+                          SourceBXmlParser parser,
+                          PollingEngine pollingEngine,
+                          ParseStage parseStage,
+                          @Value("${stream-client.source-mode}") String mode) {
+        super(webClient, "/source/b", parser, pollingEngine, parseStage, mode);
     }
 }
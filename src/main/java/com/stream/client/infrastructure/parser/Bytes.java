@@ -0,0 +1,83 @@
+package com.stream.client.infrastructure.parser;
+
+import com.stream.client.domain.model.Id;
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Index-based helpers shared by the parsers, reading a {@link DataBuffer} without copying it.
+ */
+final class Bytes {
+
+    static final byte[] NOTHING_ELSE = ascii("nothing else at the moment");
+
+    private Bytes() {}
+
+    static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    static int skipWhitespace(DataBuffer buffer, int from, int end) {
+        while (from < end && isWhitespace(buffer.getByte(from))) from++;
+        return from;
+    }
+
+    /**
+     * @return whether {@code [from, to)} holds exactly {@code expected}
+     */
+    static boolean equalsAt(DataBuffer buffer, int from, int to, byte[] expected) {
+        return to - from == expected.length && startsWith(buffer, from, to, expected);
+    }
+
+    static boolean startsWith(DataBuffer buffer, int from, int end, byte[] prefix) {
+        if (end - from < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.getByte(from + i) != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    static int indexOf(DataBuffer buffer, int from, int end, byte b) {
+        for (int i = from; i < end; i++) {
+            if (buffer.getByte(i) == b) return i;
+        }
+        return -1;
+    }
+
+    static int indexOf(DataBuffer buffer, int from, int end, byte[] needle) {
+        int last = end - needle.length;
+        for (int i = from; i <= last; i++) {
+            if (buffer.getByte(i) == needle[0] && startsWith(buffer, i, end, needle)) return i;
+        }
+        return -1;
+    }
+
+    static String utf8(DataBuffer buffer, int from, int to) {
+        return buffer.toString(from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The id in {@code [from, to)}; a hex id is read straight into its two longs, without a String.
+     */
+    static Id id(DataBuffer buffer, int from, int to) {
+        if (to - from == Id.HEX_LENGTH) {
+            long hi = 0;
+            long lo = 0;
+            int i = 0;
+            for (int digit; i < Id.HEX_LENGTH && (digit = Id.hexDigit(buffer.getByte(from + i))) >= 0; i++) {
+                if (i < Id.HEX_LENGTH / 2) {
+                    hi = hi << 4 | digit;
+                } else {
+                    lo = lo << 4 | digit;
+                }
+            }
+            if (i == Id.HEX_LENGTH) return Id.ofHex(hi, lo);
+        }
+        return Id.of(utf8(buffer, from, to));
+    }
+}
@@ -0,0 +1,77 @@
+package com.stream.client.infrastructure.parser;
+
+import com.stream.client.domain.model.SourceEvent;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits a streamed, newline-delimited body into payloads and parses each one in place.
+ * <p>
+ * Lines that sit entirely inside a chunk are handed to the parser without copying; only a line
+ * straddling two chunks is carried over in a small byte array. Blank lines are skipped.
+ * An instance holds the carry-over of one body, so it must not be shared between subscriptions.
+ */
+public final class LineDelimitedReader {
+
+    private final SourceRecordParser parser;
+    private byte[] partial = new byte[256];
+    private int partialLength;
+
+    public LineDelimitedReader(SourceRecordParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Parse every complete line in {@code chunk}. The chunk is not released.
+     */
+    public List<SourceEvent> read(DataBuffer chunk) {
+        List<SourceEvent> events = new ArrayList<>();
+        int from = chunk.readPosition();
+        int end = chunk.writePosition();
+        int newline;
+        while ((newline = Bytes.indexOf(chunk, from, end, (byte) '\n')) >= 0) {
+            if (partialLength > 0) {
+                append(chunk, from, newline);
+                parsePartial(events);
+            } else if (Bytes.skipWhitespace(chunk, from, newline) < newline) {
+                events.add(parser.parse(chunk, from, newline));
+            }
+            from = newline + 1;
+        }
+        append(chunk, from, end);
+        return events;
+    }
+
+    /**
+     * Parse the trailing line of a body that did not end with a newline.
+     */
+    public List<SourceEvent> finish() {
+        List<SourceEvent> events = new ArrayList<>(1);
+        parsePartial(events);
+        return events;
+    }
+
+    private void parsePartial(List<SourceEvent> events) {
+        DataBuffer line = DefaultDataBufferFactory.sharedInstance.wrap(partial);
+        if (Bytes.skipWhitespace(line, 0, partialLength) < partialLength) {
+            events.add(parser.parse(line, 0, partialLength));
+        }
+        partialLength = 0;
+    }
+
+    private void append(DataBuffer chunk, int from, int to) {
+        int length = to - from;
+        if (length == 0) return;
+        if (partialLength + length > partial.length) {
+            partial = Arrays.copyOf(partial, Math.max(partial.length * 2, partialLength + length));
+        }
+        for (int i = 0; i < length; i++) {
+            partial[partialLength + i] = chunk.getByte(from + i);
+        }
+        partialLength += length;
+    }
+}
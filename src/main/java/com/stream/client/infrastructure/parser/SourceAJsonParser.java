@@ -0,0 +1,144 @@
+package com.stream.client.infrastructure.parser;
+
+import com.stream.client.domain.model.SourceEvent;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+
+import static com.stream.client.infrastructure.parser.Bytes.*;
+
+/**
+ * Parser for {@code /source/a} JSON payloads such as {@code {"status": "ok", "id": "..."}}.
+ * <p>
+ * Walks the object once, byte by byte, tolerating any whitespace and field order and skipping
+ * unknown fields. Nothing is copied out of the buffer but the id of a valid record: a 32-character
+ * hex id is decoded straight into the two longs of an {@link com.stream.client.domain.model.Id},
+ * any other id is kept as a String.
+ */
+@Component
+public class SourceAJsonParser implements SourceRecordParser {
+
+    static final SourceEvent.Defective EMPTY = new SourceEvent.Defective("empty payload");
+    static final SourceEvent.Defective NOT_AN_OBJECT = new SourceEvent.Defective("not a JSON object");
+    static final SourceEvent.Defective MALFORMED = new SourceEvent.Defective("malformed JSON");
+    static final SourceEvent.Defective MISSING_STATUS = new SourceEvent.Defective("missing status");
+    static final SourceEvent.Defective UNEXPECTED_STATUS = new SourceEvent.Defective("unexpected status");
+    static final SourceEvent.Defective MISSING_ID = new SourceEvent.Defective("missing or empty id");
+
+    private static final byte[] STATUS = ascii("status");
+    private static final byte[] ID = ascii("id");
+    private static final byte[] OK = ascii("ok");
+    private static final byte[] DONE = ascii("done");
+
+    @Override
+    public SourceEvent parse(DataBuffer buffer, int from, int end) {
+        int pos = skipWhitespace(buffer, from, end);
+        if (pos == end) return EMPTY;
+        if (buffer.getByte(pos) != '{') {
+            return indexOf(buffer, pos, end, NOTHING_ELSE) >= 0 ? SourceEvent.EXHAUSTED : NOT_AN_OBJECT;
+        }
+
+        int statusFrom = -1, statusTo = -1, idFrom = -1, idTo = -1;
+        pos = skipWhitespace(buffer, pos + 1, end);
+        if (pos < end && buffer.getByte(pos) == '}') {
+            pos++;
+        } else {
+            while (true) {
+                if (pos >= end || buffer.getByte(pos) != '"') return MALFORMED;
+                int keyFrom = pos + 1;
+                int keyTo = closingQuote(buffer, pos, end);
+                if (keyTo < 0) return MALFORMED;
+
+                pos = skipWhitespace(buffer, keyTo + 1, end);
+                if (pos >= end || buffer.getByte(pos) != ':') return MALFORMED;
+                pos = skipWhitespace(buffer, pos + 1, end);
+                if (pos >= end) return MALFORMED;
+
+                boolean isStatus = equalsAt(buffer, keyFrom, keyTo, STATUS);
+                boolean isId = !isStatus && equalsAt(buffer, keyFrom, keyTo, ID);
+                if (isStatus || isId) {
+                    // both fields must be plain strings; ids are hashes, so escapes mean a broken record
+                    if (buffer.getByte(pos) != '"') return MALFORMED;
+                    int valueTo = closingQuote(buffer, pos, end);
+                    if (valueTo < 0 || indexOf(buffer, pos + 1, valueTo, (byte) '\\') >= 0) return MALFORMED;
+                    if (isStatus) {
+                        statusFrom = pos + 1;
+                        statusTo = valueTo;
+                    } else {
+                        idFrom = pos + 1;
+                        idTo = valueTo;
+                    }
+                    pos = valueTo + 1;
+                } else {
+                    pos = skipValue(buffer, pos, end);
+                    if (pos < 0) return MALFORMED;
+                }
+
+                pos = skipWhitespace(buffer, pos, end);
+                if (pos >= end) return MALFORMED;
+                byte b = buffer.getByte(pos);
+                if (b == '}') {
+                    pos++;
+                    break;
+                }
+                if (b != ',') return MALFORMED;
+                pos = skipWhitespace(buffer, pos + 1, end);
+            }
+        }
+        if (skipWhitespace(buffer, pos, end) != end) return MALFORMED;
+
+        if (statusFrom < 0) return MISSING_STATUS;
+        if (equalsAt(buffer, statusFrom, statusTo, OK)) {
+            return idFrom < 0 || idFrom == idTo ? MISSING_ID : new SourceEvent.Valid(id(buffer, idFrom, idTo));
+        }
+        return equalsAt(buffer, statusFrom, statusTo, DONE) ? SourceEvent.DONE : UNEXPECTED_STATUS;
+    }
+
+    /**
+     * @return index of the quote closing the string opened at {@code quote}, or -1 if unterminated
+     */
+    private static int closingQuote(DataBuffer buffer, int quote, int end) {
+        for (int i = quote + 1; i < end; i++) {
+            byte b = buffer.getByte(i);
+            if (b == '\\') {
+                i++;
+            } else if (b == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return index just past the value starting at {@code pos}, or -1 if it is malformed
+     */
+    private static int skipValue(DataBuffer buffer, int pos, int end) {
+        byte first = buffer.getByte(pos);
+        if (first == '"') {
+            int close = closingQuote(buffer, pos, end);
+            return close < 0 ? -1 : close + 1;
+        }
+        if (first == '{' || first == '[') {
+            int depth = 0;
+            for (int i = pos; i < end; i++) {
+                byte b = buffer.getByte(i);
+                if (b == '"') {
+                    i = closingQuote(buffer, i, end);
+                    if (i < 0) return -1;
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if ((b == '}' || b == ']') && --depth == 0) {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+        // number, true, false or null
+        int i = pos;
+        while (i < end) {
+            byte b = buffer.getByte(i);
+            if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) break;
+            i++;
+        }
+        return i == pos ? -1 : i;
+    }
+}
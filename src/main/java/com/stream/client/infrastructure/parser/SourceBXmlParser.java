@@ -0,0 +1,180 @@
+package com.stream.client.infrastructure.parser;
+
+import com.stream.client.domain.model.SourceEvent;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+
+import static com.stream.client.infrastructure.parser.Bytes.*;
+
+/**
+ * Parser for {@code /source/b} XML payloads such as {@code <msg><id value="..."/></msg>} or
+ * {@code <msg><done/></msg>}.
+ * <p>
+ * A hand-rolled, single-pass tokenizer over the buffer: it checks that the document is a single,
+ * properly nested element tree (declaration, comments and processing instructions are skipped)
+ * and picks up the {@code value} attribute of the {@code id} element on the way. Anything else is
+ * reported as {@link SourceEvent.Defective} rather than guessed at.
+ */
+@Component
+public class SourceBXmlParser implements SourceRecordParser {
+
+    static final SourceEvent.Defective EMPTY = new SourceEvent.Defective("empty payload");
+    static final SourceEvent.Defective NOT_XML = new SourceEvent.Defective("not an XML document");
+    static final SourceEvent.Defective MALFORMED = new SourceEvent.Defective("malformed XML");
+    static final SourceEvent.Defective TOO_DEEP = new SourceEvent.Defective("XML nested too deeply");
+    static final SourceEvent.Defective MISSING_ID = new SourceEvent.Defective("missing or empty id");
+    static final SourceEvent.Defective AMBIGUOUS = new SourceEvent.Defective("more than one id or done marker");
+
+    private static final int MAX_DEPTH = 8;
+
+    private static final byte[] ID = ascii("id");
+    private static final byte[] VALUE = ascii("value");
+    private static final byte[] DONE = ascii("done");
+    private static final byte[] COMMENT_OPEN = ascii("<!--");
+    private static final byte[] COMMENT_CLOSE = ascii("-->");
+    private static final byte[] CDATA_OPEN = ascii("<![CDATA[");
+    private static final byte[] CDATA_CLOSE = ascii("]]>");
+    private static final byte[] PI_CLOSE = ascii("?>");
+
+    @Override
+    public SourceEvent parse(DataBuffer buffer, int from, int end) {
+        int pos = skipWhitespace(buffer, from, end);
+        if (pos == end) return EMPTY;
+        if (buffer.getByte(pos) != '<') {
+            return indexOf(buffer, pos, end, NOTHING_ELSE) >= 0 ? SourceEvent.EXHAUSTED : NOT_XML;
+        }
+
+        // open element names as [from, to) pairs
+        int[] open = new int[MAX_DEPTH * 2];
+        int depth = 0;
+        boolean rootSeen = false;
+        int idFrom = -1, idTo = -1;
+        boolean done = false;
+
+        while (pos < end) {
+            byte b = buffer.getByte(pos);
+            if (b != '<') {
+                // character data: only whitespace may live outside the root element
+                int next = indexOf(buffer, pos, end, (byte) '<');
+                int textEnd = next < 0 ? end : next;
+                if (depth == 0 && skipWhitespace(buffer, pos, textEnd) != textEnd) return MALFORMED;
+                pos = textEnd;
+                continue;
+            }
+            if (pos + 1 >= end) return MALFORMED;
+            byte kind = buffer.getByte(pos + 1);
+
+            if (kind == '?') {
+                int close = indexOf(buffer, pos + 2, end, PI_CLOSE);
+                if (close < 0) return MALFORMED;
+                pos = close + PI_CLOSE.length;
+            } else if (kind == '!') {
+                byte[] closing;
+                if (startsWith(buffer, pos, end, COMMENT_OPEN)) {
+                    closing = COMMENT_CLOSE;
+                } else if (depth > 0 && startsWith(buffer, pos, end, CDATA_OPEN)) {
+                    closing = CDATA_CLOSE;
+                } else {
+                    return MALFORMED;
+                }
+                int close = indexOf(buffer, pos + 4, end, closing);
+                if (close < 0) return MALFORMED;
+                pos = close + closing.length;
+            } else if (kind == '/') {
+                int nameFrom = pos + 2;
+                int nameTo = nameEnd(buffer, nameFrom, end);
+                if (depth == 0 || !sameName(buffer, open[depth * 2 - 2], open[depth * 2 - 1], nameFrom, nameTo)) {
+                    return MALFORMED;
+                }
+                pos = skipWhitespace(buffer, nameTo, end);
+                if (pos >= end || buffer.getByte(pos) != '>') return MALFORMED;
+                pos++;
+                depth--;
+            } else {
+                if (depth == 0 && rootSeen) return MALFORMED; // a second root element
+                rootSeen = true;
+
+                int nameFrom = pos + 1;
+                int nameTo = nameEnd(buffer, nameFrom, end);
+                if (nameTo == nameFrom) return MALFORMED;
+                boolean isId = equalsAt(buffer, nameFrom, nameTo, ID);
+                if (equalsAt(buffer, nameFrom, nameTo, DONE)) {
+                    if (done) return AMBIGUOUS;
+                    done = true;
+                }
+
+                pos = nameTo;
+                boolean selfClosing;
+                while (true) {
+                    pos = skipWhitespace(buffer, pos, end);
+                    if (pos >= end) return MALFORMED;
+                    byte c = buffer.getByte(pos);
+                    if (c == '>') {
+                        selfClosing = false;
+                        pos++;
+                        break;
+                    }
+                    if (c == '/') {
+                        if (pos + 1 >= end || buffer.getByte(pos + 1) != '>') return MALFORMED;
+                        selfClosing = true;
+                        pos += 2;
+                        break;
+                    }
+
+                    int attrFrom = pos;
+                    int attrTo = nameEnd(buffer, attrFrom, end);
+                    if (attrTo == attrFrom) return MALFORMED;
+                    pos = skipWhitespace(buffer, attrTo, end);
+                    if (pos >= end || buffer.getByte(pos) != '=') return MALFORMED;
+                    pos = skipWhitespace(buffer, pos + 1, end);
+                    if (pos >= end) return MALFORMED;
+                    byte quote = buffer.getByte(pos);
+                    if (quote != '"' && quote != '\'') return MALFORMED;
+                    int valueTo = indexOf(buffer, pos + 1, end, quote);
+                    if (valueTo < 0 || indexOf(buffer, pos + 1, valueTo, (byte) '<') >= 0) return MALFORMED;
+
+                    if (isId && equalsAt(buffer, attrFrom, attrTo, VALUE)) {
+                        if (idFrom >= 0) return AMBIGUOUS;
+                        idFrom = pos + 1;
+                        idTo = valueTo;
+                    }
+                    pos = valueTo + 1;
+                }
+
+                if (!selfClosing) {
+                    if (depth == MAX_DEPTH) return TOO_DEEP;
+                    open[depth * 2] = nameFrom;
+                    open[depth * 2 + 1] = nameTo;
+                    depth++;
+                }
+            }
+        }
+        if (depth != 0 || !rootSeen) return MALFORMED;
+
+        if (done) return idFrom >= 0 ? AMBIGUOUS : SourceEvent.DONE;
+        // ids are hashes, so an entity reference means a broken record
+        if (idFrom < 0 || idFrom == idTo || indexOf(buffer, idFrom, idTo, (byte) '&') >= 0) return MISSING_ID;
+        return new SourceEvent.Valid(id(buffer, idFrom, idTo));
+    }
+
+    /**
+     * @return index just past the element or attribute name starting at {@code from}
+     */
+    private static int nameEnd(DataBuffer buffer, int from, int end) {
+        int i = from;
+        while (i < end) {
+            byte b = buffer.getByte(i);
+            if (isWhitespace(b) || b == '>' || b == '/' || b == '=' || b == '<' || b == '"' || b == '\'') break;
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean sameName(DataBuffer buffer, int aFrom, int aTo, int bFrom, int bTo) {
+        if (aTo - aFrom != bTo - bFrom) return false;
+        for (int i = 0; i < aTo - aFrom; i++) {
+            if (buffer.getByte(aFrom + i) != buffer.getByte(bFrom + i)) return false;
+        }
+        return true;
+    }
+}
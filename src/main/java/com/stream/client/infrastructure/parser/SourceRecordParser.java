@@ -0,0 +1,25 @@
+package com.stream.client.infrastructure.parser;
+
+import com.stream.client.domain.model.SourceEvent;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+/**
+ * Single-pass parser turning one source payload into a {@link SourceEvent}.
+ * Implementations read the buffer in place and never change its read position.
+ */
+public interface SourceRecordParser {
+
+    /**
+     * Parse the payload held in {@code [from, to)} of {@code buffer}.
+     */
+    SourceEvent parse(DataBuffer buffer, int from, int to);
+
+    default SourceEvent parse(DataBuffer buffer) {
+        return parse(buffer, buffer.readPosition(), buffer.writePosition());
+    }
+
+    default SourceEvent parse(byte[] payload) {
+        return parse(DefaultDataBufferFactory.sharedInstance.wrap(payload), 0, payload.length);
+    }
+}
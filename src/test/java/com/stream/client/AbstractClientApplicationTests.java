@@ -0,0 +1,67 @@
+package com.stream.client;
+
+import com.stream.client.fixture.FixtureServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the client with the test profile against a small {@link FixtureServer} data set and
+ * checks that every record reaches the sink once, with the right kind. Subclasses pick the
+ * engine and start their own fixture.
+ * <p>
+ * An id is reported joined only if its counterpart is read within the orphan timeout of the
+ * first sighting. Against the fixture that wait is how far one source's reads run ahead of the
+ * other's, which the pipeline does not shorten; the test asserts it stayed under the timeout
+ * before it checks the verdict, so a timeout too short for the data set fails with its own message.
+ * The test profile's timeout leaves that wait, up to about 3 s on this data set, several times
+ * the room, as it varies with scheduling from run to run.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+abstract class AbstractClientApplicationTests {
+
+	static final FixtureServer.Settings SMALL_DATA_SET =
+			new FixtureServer.Settings(2_000, 0.01, 0.01, 0.1, 0.01, 100, false, 200, 42);
+
+	@Value("${stream-client.orphan-timeout-ms}")
+	long orphanTimeoutMs;
+
+	abstract FixtureServer fixture();
+
+	static void pointAt(FixtureServer fixture, DynamicPropertyRegistry registry) {
+		registry.add("stream-client.host", () -> "127.0.0.1");
+		registry.add("stream-client.port", fixture::port);
+	}
+
+	@AfterAll
+	void stopFixture() {
+		fixture().close();
+	}
+
+	@Test
+	void joinsTheFixtureDataSet() throws InterruptedException {
+		FixtureServer fixture = fixture();
+		// orphans only go out once the timeout has passed
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(orphanTimeoutMs) + 30_000_000_000L;
+		while (fixture.receivedSubmissions() < fixture.expectedSubmissions() && System.nanoTime() < deadline) {
+			Thread.sleep(50);
+		}
+		// time for a late duplicate to show up
+		Thread.sleep(500);
+
+		assertThat(fixture.counterpartWait().percentileNanos(100))
+				.as("longest wait for a counterpart, in ns")
+				.isLessThan(TimeUnit.MILLISECONDS.toNanos(orphanTimeoutMs));
+		assertThat(fixture.isValid()).as(fixture.verdict()).isTrue();
+	}
+}
@@ -0,0 +1,25 @@
+package com.stream.client;
+
+import com.stream.client.fixture.FixtureServer;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * {@link AbstractClientApplicationTests} against a sink that answers every JSON array with a
+ * 503 but takes single records: the client has to fall back to per-record posts.
+ */
+class ArrayRefusingSinkApplicationTests extends AbstractClientApplicationTests {
+
+	private static final FixtureServer FIXTURE = FixtureServer.start(
+			new FixtureServer.Settings(2_000, 0.01, 0.01, 0.1, 0.01, 100, false, 503, 42));
+
+	@DynamicPropertySource
+	static void fixtureProperties(DynamicPropertyRegistry registry) {
+		pointAt(FIXTURE, registry);
+	}
+
+	@Override
+	FixtureServer fixture() {
+		return FIXTURE;
+	}
+}
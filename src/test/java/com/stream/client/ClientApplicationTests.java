@@ -1,13 +1,23 @@
 package com.stream.client;
 
-import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
+import com.stream.client.fixture.FixtureServer;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 
-@SpringBootTest
-class ClientApplicationTests {
+/**
+ * {@link AbstractClientApplicationTests} with the reactive engine.
+ */
+class ClientApplicationTests extends AbstractClientApplicationTests {
 
-	@Test
-	void contextLoads() {
+	private static final FixtureServer FIXTURE = FixtureServer.start(SMALL_DATA_SET);
+
+	@DynamicPropertySource
+	static void fixtureProperties(DynamicPropertyRegistry registry) {
+		pointAt(FIXTURE, registry);
 	}
 
+	@Override
+	FixtureServer fixture() {
+		return FIXTURE;
+	}
 }
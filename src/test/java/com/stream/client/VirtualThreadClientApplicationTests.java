@@ -0,0 +1,25 @@
+package com.stream.client;
+
+import com.stream.client.fixture.FixtureServer;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * {@link AbstractClientApplicationTests} with the virtual-thread engine.
+ */
+@TestPropertySource(properties = "stream-client.engine=virtual-threads")
+class VirtualThreadClientApplicationTests extends AbstractClientApplicationTests {
+
+	private static final FixtureServer FIXTURE = FixtureServer.start(SMALL_DATA_SET);
+
+	@DynamicPropertySource
+	static void fixtureProperties(DynamicPropertyRegistry registry) {
+		pointAt(FIXTURE, registry);
+	}
+
+	@Override
+	FixtureServer fixture() {
+		return FIXTURE;
+	}
+}
@@ -0,0 +1,48 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Record;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AckLedgerTest {
+
+	@Test
+	void leavesOutAcknowledgedIdsOnly() {
+		AckLedger ledger = new AckLedger(new StreamMetrics(new SimpleMeterRegistry()), 3_000, 1, 1_000);
+		ledger.acknowledged(List.of(outbound("a"), outbound("b")));
+
+		List<Outbound> batch = List.of(outbound("a"), outbound("c"), outbound("b"), outbound("d"));
+		assertThat(ledger.unacknowledged(batch)).extracting(o -> o.record().id()).containsExactly(Id.of("c"), Id.of("d"));
+
+		List<Outbound> fresh = List.of(outbound("e"), outbound("f"));
+		assertThat(ledger.unacknowledged(fresh)).isSameAs(fresh);
+	}
+
+	@Test
+	void remembersIdsForAtLeastTheOrphanTimeoutPlusOneFlush() {
+		// generations of 3 s timeout + 1 s flush interval
+		AckLedger ledger = new AckLedger(new StreamMetrics(new SimpleMeterRegistry()), 3_000, 1, 1_000);
+		long start = System.nanoTime();
+		ledger.acknowledged(List.of(outbound("old")), start);
+		for (int i = 0; i < 10_000; i++) {
+			ledger.acknowledged(List.of(outbound("id-" + i)), start + SECONDS.toNanos(3));
+		}
+		ledger.acknowledged(List.of(outbound("recent")), start + SECONDS.toNanos(4));
+		assertThat(ledger.unacknowledged(List.of(outbound("old"), outbound("id-0")))).isEmpty();
+
+		ledger.acknowledged(List.of(outbound("newest")), start + SECONDS.toNanos(8));
+		// "old" and "id-0" were kept 8 and 5 s, "recent" is 4 s old
+		assertThat(ledger.unacknowledged(List.of(outbound("old"), outbound("id-0"), outbound("recent"))))
+				.extracting(o -> o.record().id()).containsExactly(Id.of("old"), Id.of("id-0"));
+	}
+
+	private static Outbound outbound(String id) {
+		return new Outbound(new Record("joined", Id.of(id)), 0, 0);
+	}
+}
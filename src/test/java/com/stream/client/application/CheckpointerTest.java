@@ -0,0 +1,176 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Record;
+import com.stream.client.domain.model.Source;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.stream.client.application.JoinFixtures.compactStores;
+import static com.stream.client.application.JoinFixtures.id;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CheckpointerTest {
+
+	@TempDir
+	Path directory;
+
+	private final List<Client> clients = new ArrayList<>();
+
+	@AfterEach
+	void dispose() {
+		clients.forEach(client -> {
+			client.checkpointer.close();
+			client.joinEngine.dispose();
+		});
+	}
+
+	@Test
+	void restoresPendingIdsAndWaitingRecords() throws IOException {
+		Client before = client();
+		before.joinEngine.offer(Source.A, id(1)).block();
+		before.joinEngine.offer(Source.A, id(2)).block();
+		before.joinEngine.offer(Source.B, id(3)).block();
+		before.deadLetters.add(List.of(outbound("joined", id(10))));
+		before.deferredQueue.park(List.of(outbound("orphaned", id(11))));
+		before.checkpointer.snapshot().block();
+
+		Client after = client();
+		assertThat(after.joinEngine.pending(Source.A)).isEqualTo(2);
+		assertThat(after.joinEngine.pending(Source.B)).isEqualTo(1);
+		assertThat(after.joinEngine.offer(Source.B, id(1)).block().record()).isEqualTo(new Record("joined", id(1)));
+		assertThat(after.deadLetters.drain()).extracting(Outbound::record)
+				.containsExactly(new Record("joined", id(10)), new Record("orphaned", id(11)));
+	}
+
+	@Test
+	void restoresIdsThatAreNotHexAlongsideHexOnes() throws IOException {
+		Client before = client();
+		before.joinEngine.offer(Source.A, id(1)).block();
+		before.joinEngine.offer(Source.B, Id.of("not-a-hash")).block();
+		before.checkpointer.snapshot().block();
+
+		Client after = client();
+		assertThat(after.joinEngine.offer(Source.A, Id.of("not-a-hash")).block().record())
+				.isEqualTo(new Record("joined", Id.of("not-a-hash")));
+		assertThat(after.joinEngine.offer(Source.B, id(1)).block().record()).isEqualTo(new Record("joined", id(1)));
+	}
+
+	@Test
+	void leavesOutIdsAcknowledgedInTheSnapshotsLogOrALaterOne() throws IOException {
+		Client before = client();
+		for (int i = 1; i <= 4; i++) before.joinEngine.offer(Source.A, id(i)).block();
+		before.deadLetters.add(List.of(outbound("joined", id(10))));
+		before.checkpointer.snapshot().block();
+		before.checkpointer.acknowledged(List.of(outbound("orphaned", id(1)), outbound("joined", id(10))));
+		// a crash while the next generation was starting: its log exists, its snapshot does not
+		appendLog(newestLog(1), id(2));
+
+		Client after = client();
+		assertThat(after.joinEngine.pending(Source.A)).isEqualTo(2);
+		assertThat(after.joinEngine.offer(Source.B, id(1)).block()).isNull();
+		assertThat(after.joinEngine.offer(Source.B, id(2)).block()).isNull();
+		assertThat(after.joinEngine.offer(Source.B, id(3)).block()).isNotNull();
+		assertThat(after.deadLetters.size()).isZero();
+	}
+
+	@Test
+	void ignoresATornWriteAtTheEndOfTheLog() throws IOException {
+		Client before = client();
+		for (int i = 1; i <= 3; i++) before.joinEngine.offer(Source.A, id(i)).block();
+		before.checkpointer.snapshot().block();
+		before.checkpointer.acknowledged(List.of(outbound("orphaned", id(1))));
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(newestLog(0), APPEND))) {
+			// the length of id 2, but only half of its bytes
+			byte[] bytes = id(2).toString().getBytes(StandardCharsets.UTF_8);
+			out.writeShort(bytes.length);
+			out.write(bytes, 0, bytes.length / 2);
+		}
+
+		Client after = client();
+		assertThat(after.joinEngine.pending(Source.A)).isEqualTo(2);
+		assertThat(after.joinEngine.offer(Source.B, id(2)).block()).isNotNull();
+	}
+
+	@Test
+	void stopsLoggingOnceClosed() throws IOException {
+		Client before = client();
+		before.checkpointer.acknowledged(List.of(outbound("orphaned", id(1))));
+		before.checkpointer.close();
+		long logged = Files.size(newestLog(0));
+
+		before.checkpointer.acknowledged(List.of(outbound("orphaned", id(2))));
+		before.checkpointer.close();
+
+		assertThat(logged).isPositive();
+		assertThat(Files.size(newestLog(0))).isEqualTo(logged);
+	}
+
+	private Client client() throws IOException {
+		Client client = new Client(directory);
+		clients.add(client);
+		return client;
+	}
+
+	/**
+	 * @param ahead generations past the newest one on disk
+	 */
+	private Path newestLog(int ahead) throws IOException {
+		long newest = 0;
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : files.toList()) {
+				String name = file.getFileName().toString();
+				if (name.startsWith("wal-")) newest = Math.max(newest, Long.parseLong(name.substring(4, name.indexOf('.'))));
+			}
+		}
+		return directory.resolve("wal-" + (newest + ahead) + ".log");
+	}
+
+	private static void appendLog(Path log, Id id) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(log, CREATE, APPEND))) {
+			byte[] bytes = id.toString().getBytes(StandardCharsets.UTF_8);
+			out.writeShort(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static Outbound outbound(String kind, Id id) {
+		return new Outbound(new Record(kind, id), 0, 0);
+	}
+
+	private static final class Client {
+
+		final JoinEngine joinEngine;
+		final DeadLetterQueue deadLetters;
+		final DeferredQueue deferredQueue;
+		final Checkpointer checkpointer;
+
+		Client(Path directory) throws IOException {
+			SimpleMeterRegistry registry = new SimpleMeterRegistry();
+			StreamMetrics metrics = new StreamMetrics(registry);
+			joinEngine = new JoinEngine(compactStores(60_000, 100), metrics, new LatencyTracker(registry), 2);
+			deadLetters = new DeadLetterQueue(metrics, 100);
+			deferredQueue = new DeferredQueue(metrics, deadLetters);
+			deferredQueue.SINK_DEFERRED_CAPACITY = 100;
+			deferredQueue.SINK_DEFERRED_MAX_DEFERRALS = 10;
+			checkpointer = new Checkpointer(joinEngine, deadLetters, deferredQueue);
+			checkpointer.CHECKPOINT_ENABLED = true;
+			checkpointer.CHECKPOINT_DIR = directory.toString();
+			checkpointer.CHECKPOINT_INTERVAL_SECONDS = 3_600;
+			checkpointer.start();
+		}
+	}
+}
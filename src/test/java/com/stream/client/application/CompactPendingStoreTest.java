@@ -0,0 +1,101 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Source;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactPendingStoreTest {
+
+	private static final Id ID = Id.of("00b5a6e056bb791b3c11e5ffb7c7d9f2");
+
+	@Test
+	void matchesAcrossSourcesAndKeepsFirstSightingOfDuplicates() {
+		CompactPendingStore store = new CompactPendingStore(4, 1_000, 10, 3_000, 0);
+
+		assertThat(store.offer(ID, Source.A, 100)).isEqualTo(PendingStore.PENDING);
+		assertThat(store.offer(ID, Source.A, 200)).isEqualTo(PendingStore.DUPLICATE);
+		assertThat(store.offer(ID, Source.B, 300)).isEqualTo(100);
+		assertThat(store.size()).isZero();
+	}
+
+	@Test
+	void fallsBackForIdsThatAreNotHexHashes() {
+		CompactPendingStore store = new CompactPendingStore(4, 1_000, 10, 3_000, 0);
+
+		assertThat(store.offer(Id.of("not-a-hash"), Source.B, 100)).isEqualTo(PendingStore.PENDING);
+		assertThat(store.offer(Id.of("not-a-hash"), Source.A, 200)).isEqualTo(100);
+	}
+
+	@Test
+	void expiresEveryUnmatchedIdExactlyOnceAcrossResizes() {
+		CompactPendingStore store = new CompactPendingStore(2, 1_000, 10, 3_000, 0);
+		int count = 20_000;
+		for (int i = 0; i < count; i++) {
+			store.offer(id(i), i % 2 == 0 ? Source.A : Source.B, i / 10);
+		}
+		for (int i = 0; i < count; i += 4) {
+			assertThat(store.offer(id(i), Source.B, 2_000)).isGreaterThanOrEqualTo(0);
+		}
+
+		Set<Id> expired = new HashSet<>();
+		List<Id> repeated = new ArrayList<>();
+		for (long now = 0; now < 10_000; now += 700) {
+			store.expire(now, (id, source, firstSeen) -> {
+				if (!expired.add(id)) repeated.add(id);
+			});
+		}
+
+		assertThat(repeated).isEmpty();
+		assertThat(expired).hasSize(count - count / 4).contains(id(1)).doesNotContain(id(0));
+		assertThat(store.size()).isZero();
+	}
+
+	@Test
+	void expiresRestoredIdsByTheirOwnFirstSightingWhateverIsMatchedAroundThem() {
+		CompactPendingStore store = new CompactPendingStore(1, 1_000, 10, 3_000, 0);
+		for (int i = 0; i < 2_000; i++) store.offer(id(i), Source.A, 500);
+		// restored from a checkpoint, older than everything next to them
+		for (int i = 2_000; i < 2_100; i++) store.offer(id(i), Source.B, 0);
+		for (int i = 0; i < 2_000; i += 2) store.offer(id(i), Source.B, 600);
+
+		// a tick is drained once all of it has timed out: at most one 10ms tick late
+		List<Id> expired = new ArrayList<>();
+		store.expire(1_009, (id, source, firstSeen) -> expired.add(id));
+		assertThat(expired).isEmpty();
+		store.expire(1_010, (id, source, firstSeen) -> expired.add(id));
+		assertThat(expired).hasSize(100).contains(id(2_000), id(2_099)).doesNotContain(id(1));
+
+		expired.clear();
+		store.expire(1_509, (id, source, firstSeen) -> expired.add(id));
+		assertThat(expired).isEmpty();
+		store.expire(1_510, (id, source, firstSeen) -> expired.add(id));
+		assertThat(expired).hasSize(1_000).contains(id(1)).doesNotContain(id(0));
+	}
+
+	@Test
+	void expiresIdsFirstSeenBeyondTheHorizonOfALateFlush() {
+		CompactPendingStore store = new CompactPendingStore(1, 1_000, 10, 1_200, 0);
+		store.offer(id(1), Source.A, 100);
+		// a lap of the wheel ahead of the flush, in the wheel slot of the id above
+		store.offer(id(2), Source.A, 1_320);
+
+		List<Id> expired = new ArrayList<>();
+		store.expire(1_200, (id, source, firstSeen) -> expired.add(id));
+		assertThat(expired).containsExactly(id(1));
+		store.expire(2_310, (id, source, firstSeen) -> expired.add(id));
+		assertThat(expired).containsExactly(id(1));
+		store.expire(2_330, (id, source, firstSeen) -> expired.add(id));
+		assertThat(expired).containsExactly(id(1), id(2));
+	}
+
+	private static Id id(int i) {
+		return Id.of(String.format("%032x", i * 2_654_435_761L));
+	}
+}
@@ -0,0 +1,42 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Record;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadLetterQueueTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final DeadLetterQueue queue = new DeadLetterQueue(new StreamMetrics(registry), 3);
+
+	@Test
+	void evictsTheOldestLetterOnceFull() {
+		queue.add(List.of(letter("a"), letter("b")));
+		queue.add(List.of(letter("c"), letter("d"), letter("e")));
+
+		assertThat(queue.size()).isEqualTo(3);
+		assertThat(queue.drain()).extracting(outbound -> outbound.record().id())
+				.containsExactly(Id.of("c"), Id.of("d"), Id.of("e"));
+		assertThat(queue.size()).isZero();
+		assertThat(registry.get("stream.sink.dead.lettered").counter().count()).isEqualTo(5);
+		assertThat(registry.get("stream.sink.dead.letters.lost").counter().count()).isEqualTo(2);
+	}
+
+	@Test
+	void drainsAtMostTheOldestLettersAskedFor() {
+		queue.add(List.of(letter("a"), letter("b"), letter("c")));
+
+		assertThat(queue.drain(2)).extracting(outbound -> outbound.record().id()).containsExactly(Id.of("a"), Id.of("b"));
+		assertThat(queue.drain(2)).extracting(outbound -> outbound.record().id()).containsExactly(Id.of("c"));
+		assertThat(queue.drain(2)).isEmpty();
+	}
+
+	private static Outbound letter(String id) {
+		return new Outbound(new Record("orphaned", Id.of(id)), 0, 0);
+	}
+}
@@ -0,0 +1,85 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Record;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeferredQueueTest {
+
+	private final StreamMetrics metrics = new StreamMetrics(new SimpleMeterRegistry());
+	private final DeadLetterQueue deadLetters = new DeadLetterQueue(metrics, 100);
+	private final DeferredQueue queue = new DeferredQueue(metrics, deadLetters);
+	private final List<Outbound> released = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void subscribe() {
+		// the timer stays out of the way
+		queue.SINK_DEFERRED_MAX_PARK_MS = 60_000;
+		queue.SINK_DEFERRED_CAPACITY = 4;
+		queue.SINK_DEFERRED_MAX_DEFERRALS = 2;
+		queue.SINK_BATCH_SIZE = 2;
+		queue.released().subscribe(released::add);
+	}
+
+	@AfterEach
+	void close() {
+		queue.close();
+	}
+
+	@Test
+	void releasesOneBatchPerSourceReadOldestFirst() {
+		queue.park(List.of(letter("a"), letter("b"), letter("c")));
+
+		queue.sourceProgressed();
+		assertThat(ids(released)).containsExactly(Id.of("a"), Id.of("b"));
+		assertThat(queue.size()).isEqualTo(1);
+
+		queue.sourceProgressed();
+		queue.sourceProgressed();
+		assertThat(ids(released)).containsExactly(Id.of("a"), Id.of("b"), Id.of("c"));
+		assertThat(queue.size()).isZero();
+	}
+
+	@Test
+	void deadLettersRecordsDeferredTooOftenOrBeyondItsCapacity() {
+		queue.park(List.of(letter("a")));
+		for (int deferral = 2; deferral <= 3; deferral++) {
+			queue.sourceProgressed();
+			List<Outbound> again = List.copyOf(released);
+			released.clear();
+			queue.park(again);
+		}
+		assertThat(queue.size()).isZero();
+		assertThat(ids(deadLetters.drain())).containsExactly(Id.of("a"));
+
+		queue.park(List.of(letter("b"), letter("c"), letter("d"), letter("e"), letter("f")));
+		assertThat(queue.size()).isEqualTo(4);
+		assertThat(ids(deadLetters.drain())).containsExactly(Id.of("f"));
+	}
+
+	@Test
+	void keepsWhatIsParkedOnceClosed() {
+		queue.close();
+		queue.park(List.of(letter("a")));
+		queue.sourceProgressed();
+
+		assertThat(released).isEmpty();
+		assertThat(ids(queue.drain())).containsExactly(Id.of("a"));
+	}
+
+	private static List<Id> ids(List<Outbound> records) {
+		return records.stream().map(outbound -> outbound.record().id()).toList();
+	}
+
+	private static Outbound letter(String id) {
+		return new Outbound(new Record("joined", Id.of(id)), 0, 0);
+	}
+}
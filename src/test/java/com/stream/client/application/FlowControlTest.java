@@ -0,0 +1,79 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Source;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.stream.client.application.JoinFixtures.compactStores;
+import static com.stream.client.application.JoinFixtures.id;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlowControlTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final StreamMetrics metrics = new StreamMetrics(registry);
+	private final JoinEngine joinEngine = new JoinEngine(compactStores(60_000, 100), metrics, new LatencyTracker(registry), 2);
+	private final FlowControl flowControl = new FlowControl(joinEngine, metrics);
+
+	@AfterEach
+	void dispose() {
+		joinEngine.dispose();
+	}
+
+	@Test
+	void holdsTheLeadingSourceUntilAMatchBringsPendingBelowTheWatermark() throws Exception {
+		flowControl.MAX_PENDING_SIZE = 10;
+		for (int i = 0; i < 10; i++) joinEngine.offer(Source.A, id(i)).block();
+		assertThat(flowControl.mustPause(Source.A)).isTrue();
+		assertThat(flowControl.mustPause(Source.B)).isFalse();
+
+		List<CompletableFuture<String>> held = new ArrayList<>();
+		for (int i = 0; i < 100; i++) held.add(flowControl.admit(Source.A, Mono.just("work")).toFuture());
+		Thread.sleep(50);
+		assertThat(held).noneMatch(CompletableFuture::isDone);
+
+		// the trailing source goes through and its match makes room
+		assertThat(flowControl.admit(Source.B, joinEngine.offer(Source.B, id(0))).block()).isNotNull();
+		for (CompletableFuture<String> work : held) {
+			assertThat(work.get(1, TimeUnit.SECONDS)).isEqualTo("work");
+		}
+		assertThat(registry.get("stream.backpressure.pauses").tag("source", "a").counter().count()).isEqualTo(100);
+		assertThat(registry.get("stream.backpressure.paused").tag("source", "a").timer().count()).isEqualTo(100);
+	}
+
+	@Test
+	void resumesASourceOnceTheOtherOneTakesTheLead() throws Exception {
+		flowControl.MAX_PENDING_SIZE = 10;
+		for (int i = 0; i < 10; i++) joinEngine.offer(Source.A, id(i)).block();
+		CompletableFuture<String> held = flowControl.admit(Source.A, Mono.just("work")).toFuture();
+
+		for (int i = 100; i < 110; i++) joinEngine.offer(Source.B, id(i)).block();
+		// 10 and 10: the tie holds A back and leaves B reading
+		assertThat(held).isNotDone();
+		assertThat(flowControl.mustPause(Source.B)).isFalse();
+		joinEngine.offer(Source.B, id(110)).block();
+
+		assertThat(held.get(1, TimeUnit.SECONDS)).isEqualTo("work");
+		assertThat(flowControl.mustPause(Source.B)).isTrue();
+	}
+
+	@Test
+	void neverPausesBothSourcesOnATie() {
+		flowControl.MAX_PENDING_SIZE = 10;
+		for (int i = 0; i < 5; i++) joinEngine.offer(Source.A, id(i)).block();
+		for (int i = 100; i < 105; i++) joinEngine.offer(Source.B, id(i)).block();
+
+		assertThat(flowControl.mustPause(Source.A)).isTrue();
+		assertThat(flowControl.mustPause(Source.B)).isFalse();
+		// B's match of a pending A id makes room again
+		assertThat(flowControl.admit(Source.B, joinEngine.offer(Source.B, id(0))).block()).isNotNull();
+		assertThat(flowControl.mustPause(Source.A)).isFalse();
+	}
+}
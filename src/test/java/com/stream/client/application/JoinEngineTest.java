@@ -0,0 +1,113 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Record;
+import com.stream.client.domain.model.Source;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.stream.client.application.JoinFixtures.compactStores;
+import static com.stream.client.application.JoinFixtures.id;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JoinEngineTest {
+
+	private static final int SHARDS = 4;
+	private static final long TIMEOUT_MS = 100;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final JoinEngine engine = new JoinEngine(compactStores(TIMEOUT_MS, 10), new StreamMetrics(registry),
+			new LatencyTracker(registry), SHARDS);
+
+	@AfterEach
+	void dispose() {
+		engine.dispose();
+	}
+
+	@Test
+	void matchesOrInsertsAcrossShards() {
+		for (int i = 0; i < 100; i++) {
+			assertThat(engine.offer(Source.A, id(i)).block()).isNull();
+		}
+		assertThat(engine.offer(Source.A, id(0)).block()).isNull(); // duplicate
+		assertThat(engine.pending(Source.A)).isEqualTo(100);
+		assertThat(engine.pending(Source.B)).isZero();
+		assertThat(engine.size()).isEqualTo(100);
+
+		for (int i = 0; i < 100; i++) {
+			assertThat(engine.offer(Source.B, id(i)).block().record()).isEqualTo(new Record("joined", id(i)));
+		}
+		assertThat(engine.pending(Source.A)).isZero();
+		assertThat(engine.pending(Source.B)).isZero();
+		assertThat(engine.size()).isZero();
+		for (int shard = 0; shard < SHARDS; shard++) {
+			assertThat(engine.queueDepth(shard)).isZero();
+		}
+	}
+
+	@Test
+	void expiresTimedOutIdsAsOrphans() throws InterruptedException {
+		for (int i = 0; i < 10; i++) engine.offer(Source.A, id(i)).block();
+		Thread.sleep(TIMEOUT_MS * 3);
+		for (int i = 10; i < 15; i++) engine.offer(Source.B, id(i)).block();
+
+		List<Record> expected = new ArrayList<>();
+		for (int i = 0; i < 10; i++) expected.add(new Record("orphaned", id(i)));
+		assertThat(engine.expire().map(Outbound::record).collectList().block()).containsExactlyInAnyOrderElementsOf(expected);
+		assertThat(engine.pending(Source.A)).isZero();
+		assertThat(engine.pending(Source.B)).isEqualTo(5);
+	}
+
+	@Test
+	void takesOffersCancelledBeforeTheyRanOutOfTheQueueDepth() throws InterruptedException {
+		// the first change of the pending counts holds its shard's thread
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicBoolean hold = new AtomicBoolean(true);
+		engine.onPendingChanged(() -> {
+			if (!hold.compareAndSet(true, false)) return;
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		engine.offer(Source.A, id(0)).subscribe();
+
+		List<Disposable> offers = new ArrayList<>();
+		for (int i = 1; i < 100; i++) offers.add(engine.offer(Source.A, id(i)).subscribe());
+		Thread.sleep(50);
+		assertThat(totalQueueDepth()).isPositive();
+
+		offers.forEach(Disposable::dispose);
+		release.countDown();
+		Thread.sleep(50);
+		assertThat(totalQueueDepth()).isZero();
+	}
+
+	@Test
+	void drainsEveryShardAndStopsItsThreadsOnDispose() {
+		for (int i = 0; i < 20; i++) engine.offer(i % 2 == 0 ? Source.A : Source.B, id(i)).block();
+
+		assertThat(engine.drain()).hasSize(20).allMatch(outbound -> outbound.record().kind().equals("orphaned"));
+		assertThat(engine.pending(Source.A)).isZero();
+		assertThat(engine.pending(Source.B)).isZero();
+
+		engine.dispose();
+		assertThatThrownBy(() -> engine.offer(Source.A, id(0)).block()).isInstanceOf(RejectedExecutionException.class);
+	}
+
+	private int totalQueueDepth() {
+		int depth = 0;
+		for (int shard = 0; shard < SHARDS; shard++) depth += engine.queueDepth(shard);
+		return depth;
+	}
+}
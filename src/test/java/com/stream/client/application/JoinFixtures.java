@@ -0,0 +1,26 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+
+/**
+ * Pending stores and ids for the tests that run a {@link JoinEngine}.
+ */
+final class JoinFixtures {
+
+	private JoinFixtures() {
+	}
+
+	/**
+	 * @return a factory of single-stripe compact stores, flushed every second
+	 */
+	static PendingStoreFactory compactStores(long orphanTimeoutMs, long wheelTickMs) {
+		return new PendingStoreFactory("compact", 1, orphanTimeoutMs, 1, wheelTickMs, 0, null);
+	}
+
+	/**
+	 * @return a hex id, spread over the shards by its index
+	 */
+	static Id id(int i) {
+		return Id.ofHex(i * 0x9E3779B97F4A7C15L, i);
+	}
+}
@@ -0,0 +1,50 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Record;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyTrackerTest {
+
+	private static final long MS = 1_000_000;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final LatencyTracker tracker = new LatencyTracker(registry);
+
+	@Test
+	void recordsEachStageInItsOwnHistogram() {
+		tracker.matched(1_000 * MS, 1_005 * MS);
+		long now = System.nanoTime();
+		tracker.acknowledged(new Outbound(new Record("joined", Id.of("a")), now - 50 * MS, now - 20 * MS), now);
+		// an orphan has no end-to-end time, only its sink stage
+		tracker.acknowledged(new Outbound(new Record("orphaned", Id.of("b")), now - 900 * MS, now - 30 * MS), now);
+
+		assertThat(seconds("join", "1.0")).isCloseTo(0.005, within(0.0001));
+		assertThat(seconds("sink", "0.5")).isCloseTo(0.020, within(0.0002));
+		assertThat(seconds("sink", "1.0")).isCloseTo(0.030, within(0.0003));
+		assertThat(seconds("end_to_end", "0.5")).isCloseTo(0.050, within(0.0005));
+		assertThat(seconds("end_to_end", "1.0")).isCloseTo(0.050, within(0.0005));
+	}
+
+	@Test
+	void recordsEveryRecordOfAnAcknowledgedBatch() {
+		long now = System.nanoTime();
+		tracker.acknowledged(List.of(
+				new Outbound(new Record("joined", Id.of("a")), now - 10 * MS, now - 10 * MS),
+				new Outbound(new Record("joined", Id.of("b")), now - 10 * MS, now - 10 * MS)));
+
+		assertThat(seconds("sink", "0.5")).isGreaterThanOrEqualTo(0.0099);
+		assertThat(seconds("end_to_end", "0.5")).isGreaterThanOrEqualTo(0.0099);
+		assertThat(seconds("join", "1.0")).isZero();
+	}
+
+	private double seconds(String stage, String quantile) {
+		return registry.get("stream.latency").tag("stage", stage).tag("quantile", quantile).gauge().value();
+	}
+}
@@ -0,0 +1,39 @@
+package com.stream.client.application;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrphanExpiryWheelTest {
+
+	@Test
+	void drainsOnlyKeysWhoseTickHasTimedOut() {
+		OrphanExpiryWheel<String> wheel = new OrphanExpiryWheel<>(10, 100, 200, 1_000);
+		wheel.schedule("early", 1_000);
+		wheel.schedule("late", 1_050);
+
+		List<String> due = new ArrayList<>();
+		wheel.advance(1_105, due::add);
+		assertThat(due).isEmpty();
+
+		wheel.advance(1_110, due::add);
+		assertThat(due).containsExactly("early");
+
+		wheel.advance(1_160, due::add);
+		assertThat(due).containsExactly("early", "late");
+	}
+
+	@Test
+	void backDatedKeysAreNotLostBehindTheCursor() {
+		OrphanExpiryWheel<String> wheel = new OrphanExpiryWheel<>(10, 100, 200, 1_000);
+		wheel.advance(1_500, key -> {});
+		wheel.schedule("stale", 1_000);
+
+		List<String> due = new ArrayList<>();
+		wheel.advance(1_620, due::add);
+		assertThat(due).containsExactly("stale");
+	}
+}
@@ -0,0 +1,51 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Source;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PendingStoreFactoryTest {
+
+	@TempDir
+	Path spillDir;
+
+	@Test
+	void deletesStaleSpillDirectoriesOnStartAndItsOwnOnDestroy() throws IOException {
+		Path stale = Files.createDirectories(spillDir.resolve("pending-123"));
+		Files.writeString(stale.resolve("segment-0.bin"), "left by a killed run");
+		Path unrelated = Files.createDirectories(spillDir.resolve("other"));
+
+		PendingStoreFactory factory = factory();
+		PendingStore store = factory.create(0);
+		assertThat(stale).doesNotExist();
+
+		// spill one id so the directory is not empty
+		store.offer(Id.of("a"), Source.A, 0);
+		store.expire(500, (id, source, firstSeen) -> {});
+		assertThat(store.size()).isEqualTo(1);
+		assertThat(spillDirectories()).hasSize(1);
+
+		factory.deleteSpillDirectories();
+		assertThat(spillDirectories()).isEmpty();
+		assertThat(unrelated).exists();
+	}
+
+	private PendingStoreFactory factory() {
+		return new PendingStoreFactory("tiered", 1, 10_000, 1, 10, 100, spillDir.toString());
+	}
+
+	private List<Path> spillDirectories() throws IOException {
+		try (Stream<Path> paths = Files.list(spillDir)) {
+			return paths.filter(path -> path.getFileName().toString().startsWith("pending-")).toList();
+		}
+	}
+}
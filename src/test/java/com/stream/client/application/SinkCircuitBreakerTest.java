@@ -0,0 +1,98 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.port.SinkDeferredException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SinkCircuitBreakerTest {
+
+	@Test
+	void opensOnFailuresFailsFastAndClosesAfterProbes() throws InterruptedException {
+		SinkCircuitBreaker breaker = new SinkCircuitBreaker(10, 4, 0.5, 1_000, 50, 2);
+		AtomicInteger calls = new AtomicInteger();
+		Mono<String> failing = Mono.fromCallable(() -> {
+			calls.incrementAndGet();
+			throw new IllegalStateException("503");
+		});
+		Mono<String> ok = Mono.fromCallable(() -> {
+			calls.incrementAndGet();
+			return "ok";
+		});
+
+		for (int i = 0; i < 4; i++) {
+			breaker.protect(failing).onErrorResume(e -> Mono.empty()).block();
+		}
+		assertThat(breaker.state()).isEqualTo(SinkCircuitBreaker.State.OPEN);
+
+		assertThatThrownBy(() -> breaker.protect(ok).block()).isInstanceOf(SinkUnavailableException.class);
+		assertThat(calls).hasValue(4);
+
+		Thread.sleep(60);
+		assertThat(breaker.state()).isEqualTo(SinkCircuitBreaker.State.HALF_OPEN);
+		assertThat(breaker.protect(ok).block()).isEqualTo("ok");
+		assertThat(breaker.protect(ok).block()).isEqualTo("ok");
+		assertThat(breaker.state()).isEqualTo(SinkCircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void aFailedProbeOpensAgain() throws InterruptedException {
+		SinkCircuitBreaker breaker = new SinkCircuitBreaker(10, 2, 0.5, 1_000, 50, 1);
+		Mono<String> failing = Mono.error(new IllegalStateException("503"));
+		breaker.protect(failing).onErrorResume(e -> Mono.empty()).block();
+		breaker.protect(failing).onErrorResume(e -> Mono.empty()).block();
+
+		Thread.sleep(60);
+		breaker.protect(failing).onErrorResume(e -> Mono.empty()).block();
+		assertThat(breaker.state()).isEqualTo(SinkCircuitBreaker.State.OPEN);
+	}
+
+	@Test
+	void deferralsKeepTheCircuitClosed() {
+		SinkCircuitBreaker breaker = new SinkCircuitBreaker(10, 2, 0.5, 1_000, 50, 1);
+		for (int i = 0; i < 10; i++) {
+			breaker.protect(Mono.error(new SinkDeferredException("406", null))).onErrorResume(e -> Mono.empty()).block();
+		}
+		assertThat(breaker.state()).isEqualTo(SinkCircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void timeWaitingForTheLimiterIsNotASlowCall() throws Exception {
+		SinkCircuitBreaker breaker = new SinkCircuitBreaker(10, 2, 1.0, 20, 1_000, 1);
+		SinkConcurrencyLimiter limiter = new SinkConcurrencyLimiter(1, 1, 1);
+		Sinks.One<String> slow = Sinks.one();
+
+		limiter.limit(breaker.protect(slow.asMono())).subscribe();
+		CompletableFuture<String> queued = limiter.limit(breaker.protect(Mono.just("ok"))).toFuture();
+		Thread.sleep(50);
+		slow.tryEmitValue("late");
+
+		// one slow call of two is below the failure rate; counting the wait would open the circuit
+		assertThat(queued.get(1, TimeUnit.SECONDS)).isEqualTo("ok");
+		assertThat(breaker.state()).isEqualTo(SinkCircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void callsRefusedByAnOpenCircuitLeaveTheLimitAlone() {
+		SinkCircuitBreaker breaker = new SinkCircuitBreaker(10, 2, 0.5, 1_000, 60_000, 1);
+		SinkConcurrencyLimiter limiter = new SinkConcurrencyLimiter(8, 2, 8);
+		for (int i = 0; i < 2; i++) {
+			breaker.protect(Mono.error(new IllegalStateException("503"))).onErrorResume(e -> Mono.empty()).block();
+		}
+		assertThat(breaker.state()).isEqualTo(SinkCircuitBreaker.State.OPEN);
+
+		for (int i = 0; i < 50; i++) {
+			assertThatThrownBy(() -> limiter.limit(breaker.protect(Mono.just("ok"))).block())
+					.isInstanceOf(SinkUnavailableException.class);
+		}
+		assertThat(limiter.currentLimit()).isEqualTo(8);
+		assertThat(limiter.inFlight()).isZero();
+	}
+}
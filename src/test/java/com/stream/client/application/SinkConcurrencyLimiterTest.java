@@ -0,0 +1,89 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.port.SinkDeferredException;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SinkConcurrencyLimiterTest {
+
+	@Test
+	void growsWhileRoundTripsStayFlat() {
+		SinkConcurrencyLimiter limiter = new SinkConcurrencyLimiter(2, 1, 32);
+		AtomicLong now = new AtomicLong();
+		limiter.clock = now::get;
+
+		// rounds of as many calls as the limit allows, each taking exactly one millisecond
+		for (int round = 0; round < 50; round++) {
+			List<Sinks.One<Void>> calls = new ArrayList<>();
+			for (int i = limiter.currentLimit(); i > 0; i--) {
+				Sinks.One<Void> call = Sinks.one();
+				calls.add(call);
+				limiter.limit(call.asMono()).subscribe();
+			}
+			assertThat(limiter.waiting()).isZero();
+			now.addAndGet(1_000_000);
+			calls.forEach(Sinks.One::tryEmitEmpty);
+		}
+
+		assertThat(limiter.currentLimit()).isEqualTo(32);
+		assertThat(limiter.waiting()).isZero();
+		assertThat(limiter.inFlight()).isZero();
+	}
+
+	@Test
+	void shrinksWhenCallsFailButNotWhenTheSinkDefers() {
+		SinkConcurrencyLimiter limiter = new SinkConcurrencyLimiter(32, 2, 32);
+		for (int i = 0; i < 20; i++) {
+			limiter.limit(Mono.error(new SinkDeferredException("406", null))).onErrorResume(e -> Mono.empty()).block();
+		}
+		assertThat(limiter.currentLimit()).isEqualTo(32);
+
+		for (int i = 0; i < 100; i++) {
+			limiter.limit(Mono.error(new IllegalStateException("503"))).onErrorResume(e -> Mono.empty()).block();
+		}
+		assertThat(limiter.currentLimit()).isEqualTo(2);
+	}
+
+	@Test
+	void queuesCallsOverTheLimitUntilASlotFrees() {
+		SinkConcurrencyLimiter limiter = new SinkConcurrencyLimiter(1, 1, 1);
+		Sinks.One<String> first = Sinks.one();
+		AtomicBoolean secondStarted = new AtomicBoolean();
+
+		limiter.limit(first.asMono()).subscribe();
+		limiter.limit(Mono.fromCallable(() -> secondStarted.getAndSet(true))).subscribe();
+		assertThat(limiter.waiting()).isEqualTo(1);
+		assertThat(secondStarted).isFalse();
+
+		first.tryEmitValue("ok");
+		assertThat(limiter.waiting()).isZero();
+		assertThat(secondStarted).isTrue();
+	}
+
+	@Test
+	void givesTheSlotBackWhenACallIsCancelledWaitingOrRunning() {
+		SinkConcurrencyLimiter limiter = new SinkConcurrencyLimiter(1, 1, 1);
+		Sinks.One<String> first = Sinks.one();
+		AtomicBoolean thirdStarted = new AtomicBoolean();
+
+		Disposable running = limiter.limit(first.asMono()).subscribe();
+		Disposable waiting = limiter.limit(Mono.never()).subscribe();
+		waiting.dispose();
+		assertThat(limiter.waiting()).isZero();
+
+		running.dispose();
+		assertThat(limiter.inFlight()).isZero();
+		limiter.limit(Mono.fromCallable(() -> thirdStarted.getAndSet(true))).subscribe();
+		assertThat(thirdStarted).isTrue();
+		assertThat(limiter.inFlight()).isZero();
+	}
+}
@@ -0,0 +1,97 @@
+package com.stream.client.application;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Source;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TieredPendingStoreTest {
+
+	private static final Id ID = Id.of("00b5a6e056bb791b3c11e5ffb7c7d9f2");
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void matchesIdsThatWereSpilledToDisk() {
+		TieredPendingStore store = store(1_000);
+		assertThat(store.offer(ID, Source.A, 100)).isEqualTo(PendingStore.PENDING);
+		assertThat(store.offer(Id.of("not-a-hash"), Source.B, 100)).isEqualTo(PendingStore.PENDING);
+
+		store.expire(400, (id, source, firstSeen) -> {});
+		assertThat(store.size()).isEqualTo(2);
+
+		assertThat(store.offer(ID, Source.A, 500)).isEqualTo(PendingStore.DUPLICATE);
+		assertThat(store.offer(ID, Source.B, 500)).isEqualTo(100);
+		assertThat(store.offer(Id.of("not-a-hash"), Source.A, 500)).isEqualTo(100);
+		assertThat(store.size()).isZero();
+	}
+
+	@Test
+	void expiresEveryUnmatchedIdExactlyOnceAndDeletesItsSegments() throws IOException {
+		TieredPendingStore store = store(5_000);
+		int count = 20_000;
+		for (int i = 0; i < count; i++) {
+			store.offer(id(i), i % 2 == 0 ? Source.A : Source.B, i / 10);
+			if (i % 1_000 == 0) store.expire(i / 10, (id, source, firstSeen) -> {});
+		}
+		for (int i = 0; i < count; i += 4) {
+			assertThat(store.offer(id(i), Source.B, 2_000)).isGreaterThanOrEqualTo(0);
+		}
+
+		Set<Id> expired = new HashSet<>();
+		List<Id> repeated = new ArrayList<>();
+		for (long now = 2_000; now < 15_000; now += 100) {
+			store.expire(now, (id, source, firstSeen) -> {
+				if (!expired.add(id)) repeated.add(id);
+			});
+		}
+
+		assertThat(repeated).isEmpty();
+		assertThat(expired).hasSize(count - count / 4).contains(id(1)).doesNotContain(id(0));
+		assertThat(store.size()).isZero();
+		try (Stream<Path> files = Files.list(directory)) {
+			assertThat(files).isEmpty();
+		}
+	}
+
+	@Test
+	void drainReportsColdIdsAndLeavesNoSegmentBehind() throws IOException {
+		TieredPendingStore store = store(5_000);
+		for (int i = 0; i < 1_000; i++) {
+			store.offer(id(i), Source.A, i);
+		}
+		store.expire(1_500, (id, source, firstSeen) -> {});
+
+		Set<Id> drained = new HashSet<>();
+		store.drain(1_500, (id, source, firstSeen) -> drained.add(id));
+
+		assertThat(drained).hasSize(1_000);
+		assertThat(store.size()).isZero();
+		// a drained store is empty, not broken
+		assertThat(store.offer(ID, Source.A, 1_600)).isEqualTo(PendingStore.PENDING);
+		try (Stream<Path> files = Files.list(directory)) {
+			assertThat(files).isEmpty();
+		}
+	}
+
+	private TieredPendingStore store(long timeoutMs) {
+		CompactPendingStore hot = new CompactPendingStore(1, 200, 10, 1_200, 0);
+		return new TieredPendingStore(hot, directory, timeoutMs, 100);
+	}
+
+	private static Id id(int i) {
+		return Id.of(String.format("%032x", i * 2_654_435_761L));
+	}
+}
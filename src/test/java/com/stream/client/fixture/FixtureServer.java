@@ -0,0 +1,337 @@
+package com.stream.client.fixture;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the Python fixture server.
+ * <p>
+ * Serves {@code /source/a} (JSON) and {@code /source/b} (XML) from a generated data set with
+ * configurable defect, duplicate and orphan ratios, one record per GET or, when streaming is on
+ * and the client asks for NDJSON, as one chunked newline-delimited body. {@code /sink/a} accepts
+ * single records and, unless told to answer them with another status, JSON arrays; it randomly
+ * answers 406 like the real sink and checks every submission against the expected outcome.
+ */
+public final class FixtureServer implements AutoCloseable {
+
+	static final String NOTHING_ELSE = "nothing else at the moment";
+
+	/**
+	 * Data set and behaviour, read from {@code fixture.*} system properties.
+	 * {@code sinkArrayStatus} is the status the sink answers JSON arrays with, 200 to take them.
+	 */
+	public record Settings(int records, double defectRatio, double duplicateRatio, double orphanRatio,
+			double sinkRejectRatio, int shuffleWindow, boolean streaming, int sinkArrayStatus, long seed) {
+
+		public static Settings fromSystemProperties() {
+			return new Settings(
+					Integer.getInteger("fixture.records", 100_000),
+					Double.parseDouble(System.getProperty("fixture.defect-ratio", "0.01")),
+					Double.parseDouble(System.getProperty("fixture.duplicate-ratio", "0.01")),
+					Double.parseDouble(System.getProperty("fixture.orphan-ratio", "0.1")),
+					Double.parseDouble(System.getProperty("fixture.sink-reject-ratio", "0.01")),
+					Integer.getInteger("fixture.shuffle-window", 1_000),
+					Boolean.parseBoolean(System.getProperty("fixture.streaming", "false")),
+					Integer.getInteger("fixture.sink-array-status", 200),
+					Long.getLong("fixture.seed", 42L));
+		}
+	}
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final Settings settings;
+	private final Feed sourceA;
+	private final Feed sourceB;
+	private final Set<String> expectedJoined = new HashSet<>();
+	private final Set<String> expectedOrphaned = new HashSet<>();
+
+	// latest time either source served an id, to measure join latency at the sink
+	private final Map<String, Long> lastServedNanos = new ConcurrentHashMap<>();
+	// first time a source served an id, to measure how long it waits for its counterpart
+	private final Map<String, FirstServed> firstServed = new ConcurrentHashMap<>();
+	private final Map<String, String> received = new ConcurrentHashMap<>();
+	private final AtomicInteger duplicates = new AtomicInteger();
+	private final AtomicInteger wrongKind = new AtomicInteger();
+	private final AtomicInteger unknown = new AtomicInteger();
+	private final AtomicInteger rejected = new AtomicInteger();
+	private final AtomicInteger refusedArrays = new AtomicInteger();
+	private final AtomicLong lastReceivedNanos = new AtomicLong();
+	private final LatencyRecorder joinLatency = new LatencyRecorder();
+	private final LatencyRecorder counterpartWait = new LatencyRecorder();
+
+	private final DisposableServer server;
+
+	private FixtureServer(Settings settings) {
+		this.settings = settings;
+		List<String[]> a = new ArrayList<>();
+		List<String[]> b = new ArrayList<>();
+		generate(a, b);
+		this.sourceA = new Feed(a, "{\"status\": \"done\"}");
+		this.sourceB = new Feed(b, "<?xml version=\"1.0\" encoding=\"UTF-8\"?><msg><done/></msg>");
+		this.server = HttpServer.create()
+				.host("127.0.0.1")
+				.port(0)
+				.route(routes -> routes
+						.get("/source/a", (request, response) -> serve(sourceA, request, response))
+						.get("/source/b", (request, response) -> serve(sourceB, request, response))
+						.post("/sink/a", this::sink))
+				.bindNow();
+	}
+
+	public static FixtureServer start(Settings settings) {
+		return new FixtureServer(settings);
+	}
+
+	public int port() {
+		return server.port();
+	}
+
+	public int expectedSubmissions() {
+		return expectedJoined.size() + expectedOrphaned.size();
+	}
+
+	public int receivedSubmissions() {
+		return received.size();
+	}
+
+	public int servedRecords() {
+		return sourceA.served.get() + sourceB.served.get();
+	}
+
+	public long lastReceivedNanos() {
+		return lastReceivedNanos.get();
+	}
+
+	public LatencyRecorder joinLatency() {
+		return joinLatency;
+	}
+
+	/**
+	 * Time from the first source serving an id to the other source serving it: how far one
+	 * source's reads ran ahead of the other's. The client reports a record whose wait exceeds its
+	 * orphan timeout as an orphan, however fast its pipeline.
+	 */
+	public LatencyRecorder counterpartWait() {
+		return counterpartWait;
+	}
+
+	/**
+	 * @return a human-readable verdict; the data set was processed correctly when {@link #isValid()}
+	 */
+	public String verdict() {
+		int missing = 0;
+		for (String id : expectedJoined) if (!received.containsKey(id)) missing++;
+		for (String id : expectedOrphaned) if (!received.containsKey(id)) missing++;
+		return String.format("expected=%d received=%d missing=%d duplicates=%d wrongKind=%d unknown=%d rejected406=%d refusedArrays=%d",
+				expectedSubmissions(), received.size(), missing, duplicates.get(), wrongKind.get(), unknown.get(),
+				rejected.get(), refusedArrays.get());
+	}
+
+	public boolean isValid() {
+		return received.size() == expectedSubmissions() && duplicates.get() == 0
+				&& wrongKind.get() == 0 && unknown.get() == 0;
+	}
+
+	@Override
+	public void close() {
+		server.disposeNow();
+	}
+
+	private void generate(List<String[]> a, List<String[]> b) {
+		Random random = new Random(settings.seed());
+		for (int i = 0; i < settings.records(); i++) {
+			String id = String.format("%016x%016x", random.nextLong(), random.nextLong());
+			boolean orphan = random.nextDouble() < settings.orphanRatio();
+			boolean inA = !orphan || random.nextBoolean();
+			boolean inB = !orphan || !inA;
+			(orphan ? expectedOrphaned : expectedJoined).add(id);
+			if (inA) add(a, json(id), id, random);
+			if (inB) add(b, xml(id), id, random);
+		}
+		int defects = (int) (settings.records() * settings.defectRatio());
+		for (int i = 0; i < defects; i++) {
+			a.add(new String[]{"{\"status\": \"ok\", \"id\": ", null});
+			b.add(new String[]{"<msg><id value=\"" + i + "\"></msg>", null});
+		}
+		windowedShuffle(a, random);
+		windowedShuffle(b, random);
+	}
+
+	private void add(List<String[]> lines, String line, String id, Random random) {
+		lines.add(new String[]{line, id});
+		if (random.nextDouble() < settings.duplicateRatio()) lines.add(new String[]{line, id});
+	}
+
+	/**
+	 * Shuffle in windows so a record and its counterpart stay a bounded distance apart.
+	 */
+	private void windowedShuffle(List<String[]> lines, Random random) {
+		int window = Math.max(1, settings.shuffleWindow());
+		for (int from = 0; from < lines.size(); from += window) {
+			Collections.shuffle(lines.subList(from, Math.min(lines.size(), from + window)), random);
+		}
+	}
+
+	private static String json(String id) {
+		return "{\"status\": \"ok\", \"id\": \"" + id + "\"}";
+	}
+
+	private static String xml(String id) {
+		return "<?xml version=\"1.0\" encoding=\"UTF-8\"?><msg><id value=\"" + id + "\"/></msg>";
+	}
+
+	private Mono<Void> serve(Feed feed, HttpServerRequest request, HttpServerResponse response) {
+		String accept = request.requestHeaders().get(HttpHeaderNames.ACCEPT, "");
+		if (settings.streaming() && accept.contains("application/x-ndjson")) {
+			Flux<String> lines = Flux.<String>generate(sink -> {
+				String next = feed.next(this);
+				sink.next(next + "\n");
+				if (next.equals(NOTHING_ELSE)) sink.complete();
+			});
+			return response.header(HttpHeaderNames.CONTENT_TYPE, "application/x-ndjson")
+					.sendString(lines)
+					.then();
+		}
+		byte[] body = feed.next(this).getBytes(StandardCharsets.UTF_8);
+		return response.header(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(body.length))
+				.sendByteArray(Mono.just(body))
+				.then();
+	}
+
+	private Mono<Void> sink(HttpServerRequest request, HttpServerResponse response) {
+		return request.receive().aggregate().asString().defaultIfEmpty("").flatMap(body -> {
+			if (ThreadLocalRandom.current().nextDouble() < settings.sinkRejectRatio()) {
+				rejected.incrementAndGet();
+				return response.status(HttpResponseStatus.NOT_ACCEPTABLE)
+						.sendString(Mono.just("must read or write somewhere else first"))
+						.then();
+			}
+			try {
+				JsonNode payload = objectMapper.readTree(body);
+				if (payload.isArray() && settings.sinkArrayStatus() != 200) {
+					refusedArrays.incrementAndGet();
+					return response.status(settings.sinkArrayStatus()).send().then();
+				}
+				if (payload.isArray()) {
+					payload.forEach(this::accept);
+				} else {
+					accept(payload);
+				}
+			} catch (Exception e) {
+				return response.status(HttpResponseStatus.BAD_REQUEST).send().then();
+			}
+			return response.status(HttpResponseStatus.OK).send().then();
+		});
+	}
+
+	private void accept(JsonNode record) {
+		String id = record.path("id").asText();
+		String kind = record.path("kind").asText();
+		long now = System.nanoTime();
+		lastReceivedNanos.set(now);
+
+		if (received.putIfAbsent(id, kind) != null) {
+			duplicates.incrementAndGet();
+			return;
+		}
+		if (expectedJoined.contains(id)) {
+			if (!kind.equals("joined")) {
+				wrongKind.incrementAndGet();
+			} else {
+				Long served = lastServedNanos.get(id);
+				if (served != null) joinLatency.record(now - served);
+			}
+		} else if (expectedOrphaned.contains(id)) {
+			if (!kind.equals("orphaned")) wrongKind.incrementAndGet();
+		} else {
+			unknown.incrementAndGet();
+		}
+	}
+
+	private void served(String id, Feed feed) {
+		long now = System.nanoTime();
+		lastServedNanos.merge(id, now, Math::max);
+		FirstServed first = firstServed.putIfAbsent(id, new FirstServed(feed, now));
+		// a null feed marks an id both sources served already
+		if (first != null && first.feed() != null && first.feed() != feed
+				&& firstServed.replace(id, first, new FirstServed(null, first.nanos()))) {
+			counterpartWait.record(now - first.nanos());
+		}
+	}
+
+	private record FirstServed(Feed feed, long nanos) {
+	}
+
+	/**
+	 * One source's records, handed out in order, then its done marker, then "nothing else".
+	 */
+	private static final class Feed {
+
+		private final List<String[]> lines;
+		private final String done;
+		private final AtomicInteger cursor = new AtomicInteger();
+		private final AtomicInteger served = new AtomicInteger();
+
+		Feed(List<String[]> lines, String done) {
+			this.lines = lines;
+			this.done = done;
+		}
+
+		String next(FixtureServer server) {
+			int index = cursor.getAndIncrement();
+			if (index < lines.size()) {
+				String[] line = lines.get(index);
+				served.incrementAndGet();
+				if (line[1] != null) server.served(line[1], this);
+				return line[0];
+			}
+			return index == lines.size() ? done : NOTHING_ELSE;
+		}
+	}
+
+	/**
+	 * Collects latencies in a growable array; percentiles are computed on demand.
+	 */
+	public static final class LatencyRecorder {
+
+		private long[] values = new long[1024];
+		private int size;
+
+		synchronized void record(long nanos) {
+			if (size == values.length) values = Arrays.copyOf(values, size * 2);
+			values[size++] = nanos;
+		}
+
+		public synchronized long percentileNanos(double percentile) {
+			if (size == 0) return 0;
+			long[] sorted = Arrays.copyOf(values, size);
+			Arrays.sort(sorted);
+			return sorted[(int) Math.min(size - 1, Math.ceil(percentile / 100 * size) - 1)];
+		}
+
+		public synchronized int count() {
+			return size;
+		}
+	}
+}
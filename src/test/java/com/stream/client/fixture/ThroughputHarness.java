@@ -0,0 +1,87 @@
+package com.stream.client.fixture;
+
+import com.stream.client.ClientApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.Duration;
+
+/**
+ * End-to-end run of the client against a {@link FixtureServer}.
+ * <p>
+ * Starts the fixture, boots the application pointed at it, waits until every expected record
+ * reached the sink (or the deadline passes) and prints records/sec, p50/p99 join latency
+ * (counterpart served → joined record received by the sink), how long ids waited for their
+ * counterpart (the figure the orphan timeout has to outlast) and peak heap. Exits non-zero when
+ * the sink output does not match the generated data set.
+ * <p>
+ * Run with {@code ./gradlew throughputHarness -Pfixture.records=1000000}; every
+ * {@code fixture.*} and {@code stream-client.*} project property is passed through, so
+ * {@code -Pstream-client.engine=virtual-threads} measures the virtual-thread engine instead of
+ * the reactive one.
+ */
+public final class ThroughputHarness {
+
+	private ThroughputHarness() {
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		FixtureServer.Settings settings = FixtureServer.Settings.fromSystemProperties();
+		Duration deadline = Duration.ofSeconds(Long.getLong("fixture.deadline-seconds", 600));
+		// short enough that orphans are flushed soon after the sources run dry
+		String orphanTimeoutMs = System.getProperty("stream-client.orphan-timeout-ms", "2000");
+
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			pool.resetPeakUsage();
+		}
+
+		boolean valid;
+		try (FixtureServer fixture = FixtureServer.start(settings)) {
+			long start = System.nanoTime();
+			ConfigurableApplicationContext client = new SpringApplicationBuilder(ClientApplication.class)
+					.web(WebApplicationType.NONE)
+					.run("--stream-client.host=127.0.0.1",
+							"--stream-client.port=" + fixture.port(),
+							"--stream-client.orphan-timeout-ms=" + orphanTimeoutMs);
+
+			long limit = start + deadline.toNanos();
+			while (fixture.receivedSubmissions() < fixture.expectedSubmissions() && System.nanoTime() < limit) {
+				Thread.sleep(50);
+			}
+			long end = fixture.lastReceivedNanos() > start ? fixture.lastReceivedNanos() : System.nanoTime();
+			client.close();
+
+			double seconds = (end - start) / 1e9;
+			FixtureServer.LatencyRecorder latency = fixture.joinLatency();
+			System.out.printf("records served   %d (%s)%n", fixture.servedRecords(), settings);
+			System.out.printf("elapsed          %.2fs%n", seconds);
+			System.out.printf("throughput       %.0f records/sec%n", fixture.servedRecords() / seconds);
+			System.out.printf("join latency     p50=%.2fms p99=%.2fms (n=%d)%n",
+					latency.percentileNanos(50) / 1e6, latency.percentileNanos(99) / 1e6, latency.count());
+			FixtureServer.LatencyRecorder wait = fixture.counterpartWait();
+			System.out.printf("counterpart wait p50=%.2fms p99=%.2fms max=%.2fms (orphan timeout %sms)%n",
+					wait.percentileNanos(50) / 1e6, wait.percentileNanos(99) / 1e6, wait.percentileNanos(100) / 1e6,
+					orphanTimeoutMs);
+			System.out.printf("peak heap        %d MiB%n", peakHeapBytes() >> 20);
+			System.out.printf("sink             %s%n", fixture.verdict());
+			valid = fixture.isValid();
+		}
+		System.out.println(valid ? "PASS" : "FAIL");
+		System.exit(valid ? 0 : 1);
+	}
+
+	/**
+	 * Sum of the per-pool peaks, an upper bound on the real peak since pools peak at different times.
+	 */
+	private static long peakHeapBytes() {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+		}
+		return peak;
+	}
+}
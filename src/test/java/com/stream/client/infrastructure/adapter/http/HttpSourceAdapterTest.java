@@ -0,0 +1,151 @@
+package com.stream.client.infrastructure.adapter.http;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.SourceEvent;
+import com.stream.client.infrastructure.parser.SourceAJsonParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mode detection and reconnects of {@link HttpSourceAdapter} against a scripted server; the
+ * script gets the request number and answers it.
+ */
+class HttpSourceAdapterTest {
+
+	private static final String NOTHING_ELSE = "nothing else at the moment";
+
+	private final Scheduler scheduler = Schedulers.newParallel("parse-test", 2);
+	private final AtomicInteger requests = new AtomicInteger();
+	private final List<String> accepts = new CopyOnWriteArrayList<>();
+	private DisposableServer server;
+
+	@AfterEach
+	void dispose() {
+		if (server != null) server.disposeNow();
+		scheduler.dispose();
+	}
+
+	@Test
+	void reopensAStreamWhenItsBodyEnds() {
+		SourceAAdapter adapter = adapter((request, response) -> request == 0
+				? lines(response, record("a"), record("b"))
+				: lines(response, record("c"), NOTHING_ELSE));
+
+		assertThat(adapter.streamRecords().collectList().block(Duration.ofSeconds(5)))
+				.containsExactly(valid("a"), valid("b"), valid("c"), SourceEvent.EXHAUSTED);
+		assertThat(accepts).hasSize(2).allMatch(accept -> accept.contains("application/x-ndjson"));
+	}
+
+	@Test
+	void pollsOnceASuccessfulAnswerIsASingleRecord() {
+		SourceAAdapter adapter = adapter((request, response) -> switch (request) {
+			case 0 -> single(response, record("a"));
+			case 1 -> single(response, record("b"));
+			default -> single(response, NOTHING_ELSE);
+		});
+
+		assertThat(adapter.streamRecords().collectList().block(Duration.ofSeconds(5)))
+				.containsExactly(valid("a"), valid("b"), SourceEvent.EXHAUSTED);
+		// only the first request asked for a stream
+		assertThat(accepts.get(0)).contains("application/x-ndjson");
+		assertThat(accepts.subList(1, accepts.size())).noneMatch(accept -> accept.contains("application/x-ndjson"));
+	}
+
+	@Test
+	void pollsWhenASingleRecordComesChunked() {
+		SourceAAdapter adapter = adapter((request, response) -> switch (request) {
+			case 0 -> chunked(response, record("a"));
+			case 1 -> chunked(response, record("b"));
+			default -> chunked(response, NOTHING_ELSE);
+		});
+
+		assertThat(adapter.streamRecords().collectList().block(Duration.ofSeconds(5)))
+				.containsExactly(valid("a"), valid("b"), SourceEvent.EXHAUSTED);
+		assertThat(accepts.subList(1, accepts.size())).noneMatch(accept -> accept.contains("application/x-ndjson"));
+	}
+
+	@Test
+	void keepsStreamingAfterAFailedFirstAnswer() {
+		SourceAAdapter adapter = adapter((request, response) -> request == 0
+				? response.status(HttpResponseStatus.SERVICE_UNAVAILABLE).send()
+				: lines(response, record("a"), NOTHING_ELSE));
+
+		assertThat(adapter.streamRecords().collectList().block(Duration.ofSeconds(5)))
+				.containsExactly(valid("a"), SourceEvent.EXHAUSTED);
+		assertThat(accepts).hasSize(2).allMatch(accept -> accept.contains("application/x-ndjson"));
+	}
+
+	@Test
+	void backsOffWhileTheServerFails() {
+		SourceAAdapter adapter = adapter((request, response) ->
+				response.status(HttpResponseStatus.SERVICE_UNAVAILABLE).send());
+
+		adapter.streamRecords().take(Duration.ofMillis(500)).blockLast(Duration.ofSeconds(5));
+
+		// 20, 40, 80, 100, 100... ms apart, give or take jitter; without backoff this is hundreds
+		assertThat(requests.get()).isBetween(2, 12);
+	}
+
+	private SourceAAdapter adapter(BiFunction<Integer, HttpServerResponse, Publisher<Void>> script) {
+		server = HttpServer.create()
+				.host("127.0.0.1")
+				.port(0)
+				.route(routes -> routes.get("/source/a", (request, response) -> {
+					accepts.add(request.requestHeaders().get(HttpHeaderNames.ACCEPT, ""));
+					return script.apply(requests.getAndIncrement(), response);
+				}))
+				.bindNow();
+		SourceAAdapter adapter = new SourceAAdapter(WebClient.create("http://127.0.0.1:" + server.port()),
+				new SourceAJsonParser(), new PollingEngine(1, 4, 20, 100), new ParseStage(scheduler, 4, new SimpleMeterRegistry()),
+				"auto");
+		adapter.SOURCE_RECONNECT_MIN_MS = 20;
+		adapter.SOURCE_RECONNECT_MAX_MS = 100;
+		return adapter;
+	}
+
+	private static Publisher<Void> lines(HttpServerResponse response, String... lines) {
+		return response.header(HttpHeaderNames.CONTENT_TYPE, "application/x-ndjson")
+				.sendString(Flux.fromArray(lines).map(line -> line + "\n"));
+	}
+
+	private static Publisher<Void> single(HttpServerResponse response, String body) {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		return response.header(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(bytes.length))
+				.sendByteArray(Mono.just(bytes));
+	}
+
+	// no Content-Length: a Flux body goes out in chunks
+	private static Publisher<Void> chunked(HttpServerResponse response, String body) {
+		return response.header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+				.sendString(Flux.just(body));
+	}
+
+	private static String record(String id) {
+		return "{\"status\": \"ok\", \"id\": \"" + id + "\"}";
+	}
+
+	private static SourceEvent valid(String id) {
+		return new SourceEvent.Valid(Id.of(id));
+	}
+}
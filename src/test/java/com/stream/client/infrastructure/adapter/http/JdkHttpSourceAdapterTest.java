@@ -0,0 +1,84 @@
+package com.stream.client.infrastructure.adapter.http;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.SourceEvent;
+import com.stream.client.infrastructure.parser.SourceAJsonParser;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mode detection of {@link JdkHttpSourceAdapter} against a scripted server, as in
+ * {@link HttpSourceAdapterTest}.
+ */
+class JdkHttpSourceAdapterTest {
+
+	private static final String NOTHING_ELSE = "nothing else at the moment";
+
+	private final AtomicInteger requests = new AtomicInteger();
+	private final List<String> accepts = new CopyOnWriteArrayList<>();
+	private DisposableServer server;
+
+	@AfterEach
+	void dispose() {
+		if (server != null) server.disposeNow();
+	}
+
+	@Test
+	void pollsWhenASingleRecordComesChunked() throws InterruptedException {
+		JdkHttpSourceAdapter adapter = adapter((request, response) -> switch (request) {
+			case 0 -> chunked(response, record("a"));
+			case 1 -> chunked(response, record("b"));
+			default -> chunked(response, NOTHING_ELSE);
+		});
+		List<SourceEvent> events = new CopyOnWriteArrayList<>();
+
+		adapter.readAll(events::add);
+
+		assertThat(events).containsExactly(valid("a"), valid("b"), SourceEvent.EXHAUSTED);
+		assertThat(accepts.subList(1, accepts.size())).noneMatch(accept -> accept.contains("application/x-ndjson"));
+	}
+
+	private JdkHttpSourceAdapter adapter(BiFunction<Integer, HttpServerResponse, Publisher<Void>> script) {
+		server = HttpServer.create()
+				.host("127.0.0.1")
+				.port(0)
+				.route(routes -> routes.get("/source/a", (request, response) -> {
+					accepts.add(request.requestHeaders().get(HttpHeaderNames.ACCEPT, ""));
+					return script.apply(requests.getAndIncrement(), response);
+				}))
+				.bindNow();
+		return new JdkHttpSourceAdapter(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build(),
+				URI.create("http://127.0.0.1:" + server.port() + "/source/a"),
+				new SourceAJsonParser(), "auto", Duration.ofSeconds(5), Duration.ofMillis(20), Duration.ofMillis(100));
+	}
+
+	// no Content-Length: a Flux body goes out in chunks
+	private static Publisher<Void> chunked(HttpServerResponse response, String body) {
+		return response.header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+				.sendString(Flux.just(body));
+	}
+
+	private static String record(String id) {
+		return "{\"status\": \"ok\", \"id\": \"" + id + "\"}";
+	}
+
+	private static SourceEvent valid(String id) {
+		return new SourceEvent.Valid(Id.of(id));
+	}
+}
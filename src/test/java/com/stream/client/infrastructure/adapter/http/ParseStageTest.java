@@ -0,0 +1,94 @@
+package com.stream.client.infrastructure.adapter.http;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.SourceEvent;
+import com.stream.client.infrastructure.parser.LineDelimitedReader;
+import com.stream.client.infrastructure.parser.SourceAJsonParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that pooled buffers are released on every path; run with {@code -PleakDetection} to
+ * have Netty report any buffer that escapes these assertions as well.
+ */
+class ParseStageTest {
+
+	private final NettyDataBufferFactory buffers = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+	private final Scheduler scheduler = Schedulers.newParallel("parse-test", 2);
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final ParseStage stage = new ParseStage(scheduler, 4, registry);
+
+	@AfterEach
+	void dispose() {
+		scheduler.dispose();
+	}
+
+	@Test
+	void parsesOffTheCallingThreadAndReleasesEveryChunk() {
+		List<DataBuffer> emitted = new CopyOnWriteArrayList<>();
+		LineDelimitedReader reader = new LineDelimitedReader(new SourceAJsonParser());
+		Flux<DataBuffer> body = Flux.just("{\"status\": \"ok\", \"id\": \"a\"}\n{\"status\": ", "\"ok\", \"id\": \"b\"}\n")
+				.map(this::chunk)
+				.doOnNext(emitted::add);
+
+		List<String> threads = new CopyOnWriteArrayList<>();
+		List<SourceEvent> events = stage.lane("/source/a").parse(body, chunk -> {
+			threads.add(Thread.currentThread().getName());
+			try {
+				return reader.read(chunk);
+			} finally {
+				DataBufferUtils.release(chunk);
+			}
+		}).collectList().block();
+
+		assertThat(events).containsExactly(new SourceEvent.Valid(Id.of("a")), new SourceEvent.Valid(Id.of("b")));
+		assertThat(threads).allMatch(name -> name.startsWith("parse-test"));
+		assertThat(emitted).hasSize(2).noneMatch(this::isAllocated);
+		assertThat(registry.get("stream.stage.queue.depth").tag("path", "/source/a").gauge().value()).isZero();
+	}
+
+	@Test
+	void releasesChunksStillQueuedWhenCancelled() throws InterruptedException {
+		List<DataBuffer> emitted = new CopyOnWriteArrayList<>();
+		Flux<DataBuffer> body = Flux.range(0, 100)
+				.map(i -> chunk("{\"status\": \"ok\", \"id\": \"" + i + "\"}"))
+				.doOnNext(emitted::add);
+
+		stage.lane("/source/a").parse(body, chunk -> {
+			try {
+				return List.of(new SourceAJsonParser().parse(chunk));
+			} finally {
+				DataBufferUtils.release(chunk);
+			}
+		}).take(1).blockLast();
+
+		// the queue is cleared on the parse thread once it sees the cancellation
+		for (int i = 0; i < 100 && emitted.stream().anyMatch(this::isAllocated); i++) Thread.sleep(10);
+		assertThat(emitted).isNotEmpty().noneMatch(this::isAllocated);
+		assertThat(registry.get("stream.stage.queue.depth").tag("path", "/source/a").gauge().value()).isZero();
+	}
+
+	private DataBuffer chunk(String text) {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		return buffers.allocateBuffer(bytes.length).write(bytes);
+	}
+
+	private boolean isAllocated(DataBuffer buffer) {
+		return ((PooledDataBuffer) buffer).isAllocated();
+	}
+}
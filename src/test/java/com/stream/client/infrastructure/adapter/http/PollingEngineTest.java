@@ -0,0 +1,137 @@
+package com.stream.client.infrastructure.adapter.http;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.SourceEvent;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives {@link PollingEngine} with requests the test answers by hand, so the window can be read
+ * off the number of requests in flight.
+ */
+class PollingEngineTest {
+
+	private final PollingEngine engine = new PollingEngine(1, 8, 20, 100);
+	private final Queue<Sinks.One<SourceEvent>> inFlight = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger issued = new AtomicInteger();
+	private final Supplier<Mono<SourceEvent>> request = () -> {
+		issued.incrementAndGet();
+		Sinks.One<SourceEvent> answer = Sinks.one();
+		inFlight.add(answer);
+		return answer.asMono();
+	};
+
+	private final List<SourceEvent> events = new CopyOnWriteArrayList<>();
+	private final AtomicBoolean completed = new AtomicBoolean();
+
+	@Test
+	void growsByOnePerRecordAndHalvesOnAFailure() throws InterruptedException {
+		engine.poll(request).subscribe(events::add, e -> { }, () -> completed.set(true));
+		assertThat(inFlight).hasSize(1);
+
+		for (int k = 1; k <= 7; k++) {
+			answer(valid(k));
+			assertThat(inFlight).hasSize(1 + k);
+		}
+		assertThat(inFlight).hasSize(8); // the maximum
+		answer(valid(8));
+		assertThat(inFlight).hasSize(8);
+		int before = issued.get();
+
+		// window 8 -> 4 with 7 still in flight: nothing new until it has drained below 4
+		inFlight.poll().tryEmitError(new IOException("refused"));
+		Thread.sleep(50);
+		assertThat(issued.get()).isEqualTo(before);
+		assertThat(inFlight).hasSize(7);
+
+		// every further failure halves again, down to the minimum of one request
+		while (!inFlight.isEmpty()) inFlight.poll().tryEmitEmpty();
+		for (int i = 0; i < 100 && inFlight.isEmpty(); i++) Thread.sleep(10);
+		assertThat(inFlight).hasSize(1);
+		assertThat(events).hasSize(8);
+	}
+
+	@Test
+	void backsOffWhileTheSourceFails() {
+		Supplier<Mono<SourceEvent>> failing = () -> {
+			issued.incrementAndGet();
+			return Mono.error(new IOException("refused"));
+		};
+
+		engine.poll(failing).take(Duration.ofMillis(500)).blockLast(Duration.ofSeconds(5));
+
+		// 20, 40, 80, 100, 100... ms apart; without backoff this is hundreds
+		assertThat(issued.get()).isBetween(2, 12);
+	}
+
+	@Test
+	void stopsOnExhaustionAndEmitsTheRecordsStillInFlightFirst() {
+		engine.poll(request).subscribe(events::add, e -> { }, () -> completed.set(true));
+		answer(valid(1));
+		answer(valid(2));
+		assertThat(inFlight).hasSize(3);
+		int before = issued.get();
+
+		answer(SourceEvent.EXHAUSTED);
+		assertThat(inFlight).hasSize(2);
+		answer(valid(3));
+		assertThat(completed).isFalse();
+		answer(valid(4));
+
+		assertThat(issued.get()).isEqualTo(before);
+		assertThat(events).containsExactly(valid(1), valid(2), valid(3), valid(4), SourceEvent.EXHAUSTED);
+		assertThat(completed).isTrue();
+	}
+
+	@Test
+	void requestsNoMoreThanDownstreamDemands() {
+		AtomicInteger counter = new AtomicInteger();
+		Supplier<Mono<SourceEvent>> immediate = () -> {
+			issued.incrementAndGet();
+			return Mono.just(valid(counter.incrementAndGet()));
+		};
+		BaseSubscriber<SourceEvent> subscriber = new BaseSubscriber<>() {
+			@Override
+			protected void hookOnSubscribe(Subscription subscription) {
+				request(2);
+			}
+
+			@Override
+			protected void hookOnNext(SourceEvent event) {
+				events.add(event);
+			}
+		};
+		engine.poll(immediate).subscribe(subscriber);
+
+		assertThat(events).containsExactly(valid(1), valid(2));
+		assertThat(issued).hasValue(2);
+
+		subscriber.request(3);
+		assertThat(events).hasSize(5);
+		assertThat(issued).hasValue(5);
+		subscriber.dispose();
+	}
+
+	private void answer(SourceEvent event) {
+		inFlight.poll().tryEmitValue(event);
+	}
+
+	private static SourceEvent valid(int i) {
+		return new SourceEvent.Valid(Id.of("r" + i));
+	}
+}
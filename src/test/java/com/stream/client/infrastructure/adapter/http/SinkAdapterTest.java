@@ -0,0 +1,135 @@
+package com.stream.client.infrastructure.adapter.http;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Record;
+import com.stream.client.domain.port.SinkBatchRefusedException;
+import com.stream.client.domain.port.SinkDeferredException;
+import com.stream.client.domain.port.SinkPayloadTooLargeException;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link SinkAdapter} against a server that answers each request with the status the test's
+ * script picks for its body.
+ */
+class SinkAdapterTest {
+
+	private static final List<Record> BATCH = List.of(
+			new Record("joined", Id.of("a")), new Record("orphaned", Id.of("b")));
+
+	private final List<String> bodies = new CopyOnWriteArrayList<>();
+	private DisposableServer server;
+
+	@AfterEach
+	void dispose() {
+		server.disposeNow();
+	}
+
+	@Test
+	void switchesToRecordsForGoodOnceABatchIsRejected() {
+		SinkAdapter adapter = adapter(body -> body.startsWith("[") ? HttpResponseStatus.BAD_REQUEST : HttpResponseStatus.OK);
+
+		assertThatThrownBy(() -> adapter.sendBatch(BATCH).block()).isInstanceOf(SinkBatchRefusedException.class);
+		adapter.sendRecord(BATCH.get(0)).block();
+		// the latch is set: no second array goes out
+		assertThatThrownBy(() -> adapter.sendBatch(BATCH).block()).isInstanceOf(SinkBatchRefusedException.class);
+
+		assertThat(bodies).containsExactly(
+				"[{\"kind\":\"joined\",\"id\":\"a\"},{\"kind\":\"orphaned\",\"id\":\"b\"}]",
+				"{\"kind\":\"joined\",\"id\":\"a\"}");
+	}
+
+	@Test
+	void probesWithOneRecordAfterRepeatedServerErrorsOnArrays() {
+		SinkAdapter adapter = adapter(body -> body.startsWith("[") ? HttpResponseStatus.SERVICE_UNAVAILABLE : HttpResponseStatus.OK);
+
+		assertThatThrownBy(() -> adapter.sendBatch(BATCH).block()).isInstanceOf(WebClientResponseException.class);
+		assertThatThrownBy(() -> adapter.sendBatch(BATCH).block())
+				.isInstanceOfSatisfying(SinkBatchRefusedException.class, e -> assertThat(e.accepted()).isEqualTo(1));
+		// the latch is set: nothing goes out, nothing was accepted
+		assertThatThrownBy(() -> adapter.sendBatch(BATCH).block())
+				.isInstanceOfSatisfying(SinkBatchRefusedException.class, e -> assertThat(e.accepted()).isZero());
+
+		assertThat(bodies).hasSize(3);
+		assertThat(bodies.get(2)).isEqualTo("{\"kind\":\"joined\",\"id\":\"a\"}");
+	}
+
+	@Test
+	void keepsBatchingWhenTheProbeFailsToo() {
+		SinkAdapter adapter = adapter(body -> HttpResponseStatus.SERVICE_UNAVAILABLE);
+
+		assertThatThrownBy(() -> adapter.sendBatch(BATCH).block()).isInstanceOf(WebClientResponseException.class);
+		assertThatThrownBy(() -> adapter.sendBatch(BATCH).block()).isInstanceOf(WebClientResponseException.class);
+		assertThatThrownBy(() -> adapter.sendBatch(BATCH).block()).isInstanceOf(WebClientResponseException.class);
+
+		// one probe after the second failure, then arrays again
+		assertThat(bodies).hasSize(4);
+		assertThat(bodies.get(3)).startsWith("[");
+	}
+
+	@Test
+	void neverProbesOnceAnArrayWentThrough() {
+		AtomicInteger arrays = new AtomicInteger();
+		SinkAdapter adapter = adapter(body -> body.startsWith("[") && arrays.getAndIncrement() > 0
+				? HttpResponseStatus.SERVICE_UNAVAILABLE : HttpResponseStatus.OK);
+
+		adapter.sendBatch(BATCH).block();
+		for (int i = 0; i < 3; i++) {
+			assertThatThrownBy(() -> adapter.sendBatch(BATCH).block()).isInstanceOf(WebClientResponseException.class);
+		}
+
+		assertThat(bodies).hasSize(4).allMatch(body -> body.startsWith("["));
+	}
+
+	@Test
+	void keepsBatchingWhenABatchIsTooLarge() {
+		SinkAdapter adapter = adapter(body -> body.contains("orphaned") ? HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE : HttpResponseStatus.OK);
+
+		assertThatThrownBy(() -> adapter.sendBatch(BATCH).block()).isInstanceOf(SinkPayloadTooLargeException.class);
+		adapter.sendBatch(List.of(BATCH.get(0), BATCH.get(0))).block();
+
+		assertThat(bodies).hasSize(2);
+		assertThat(bodies.get(1)).startsWith("[");
+	}
+
+	@Test
+	void mapsNotAcceptableToADeferral() {
+		SinkAdapter adapter = adapter(body -> HttpResponseStatus.NOT_ACCEPTABLE);
+
+		assertThatThrownBy(() -> adapter.sendBatch(BATCH).block()).isInstanceOf(SinkDeferredException.class);
+		assertThatThrownBy(() -> adapter.sendRecord(BATCH.get(0)).block()).isInstanceOf(SinkDeferredException.class);
+		// a deferral says nothing about batches: the next one still goes out as an array
+		assertThatThrownBy(() -> adapter.sendBatch(BATCH).block()).isInstanceOf(SinkDeferredException.class);
+		assertThat(bodies.get(2)).startsWith("[");
+	}
+
+	private SinkAdapter adapter(Function<String, HttpResponseStatus> script) {
+		server = HttpServer.create()
+				.host("127.0.0.1")
+				.port(0)
+				.route(routes -> routes.post("/sink/a", (request, response) -> request.receive().aggregate().asString()
+						.flatMap(body -> {
+							bodies.add(body);
+							return response.status(script.apply(body)).send().then();
+						})))
+				.bindNow();
+		WebClient webClient = WebClient.builder()
+				.baseUrl("http://127.0.0.1:" + server.port())
+				.codecs(codecs -> codecs.customCodecs().register(new SinkPayloadEncoder()))
+				.build();
+		return new SinkAdapter(webClient);
+	}
+}
@@ -0,0 +1,58 @@
+package com.stream.client.infrastructure.adapter.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.Record;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SinkPayloadEncoderTest {
+
+	private final NettyDataBufferFactory buffers = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+	private final SinkPayloadEncoder encoder = new SinkPayloadEncoder();
+	private final ObjectMapper jackson = new ObjectMapper();
+
+	@Test
+	void writesWhatJacksonWrites() throws Exception {
+		List<Record> records = List.of(
+				new Record("joined", Id.of("00b5a6e056bb791b3c11e5ffb7c7d9f2")),
+				new Record("orphaned", Id.ofHex(-1, 0)),
+				new Record("joined", Id.of("not hex, \"quoted\" \\ \t\u0001 é")),
+				new Record("other", Id.of("abc123")));
+
+		for (Record record : records) {
+			assertThat(encode(record)).isEqualTo(jackson.writeValueAsString(record));
+		}
+		assertThat(encode(records)).isEqualTo(jackson.writeValueAsString(records));
+		assertThat(encode(List.of())).isEqualTo("[]");
+	}
+
+	@Test
+	void takesRecordsAndDeclaredRecordListsOnly() {
+		assertThat(encoder.canEncode(ResolvableType.forClass(Record.class), null)).isTrue();
+		assertThat(encoder.canEncode(ResolvableType.forType(SinkAdapter.RECORDS), MimeTypeUtils.APPLICATION_JSON)).isTrue();
+		assertThat(encoder.canEncode(ResolvableType.forClass(List.class), null)).isFalse();
+		assertThat(encoder.canEncode(ResolvableType.forClass(String.class), null)).isFalse();
+		assertThat(encoder.canEncode(ResolvableType.forClass(Record.class), MimeTypeUtils.APPLICATION_XML)).isFalse();
+	}
+
+	private String encode(Object value) {
+		DataBuffer buffer = encoder.encodeValue(value, buffers, ResolvableType.forInstance(value), null, Map.of());
+		try {
+			return buffer.toString(StandardCharsets.UTF_8);
+		} finally {
+			DataBufferUtils.release(buffer);
+		}
+	}
+}
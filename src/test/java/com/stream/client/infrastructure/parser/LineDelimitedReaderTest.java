@@ -0,0 +1,31 @@
+package com.stream.client.infrastructure.parser;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.SourceEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LineDelimitedReaderTest {
+
+	@Test
+	void reassemblesLinesSplitAcrossChunks() {
+		LineDelimitedReader reader = new LineDelimitedReader(new SourceAJsonParser());
+
+		assertThat(reader.read(chunk("{\"status\": \"ok\", \"id\": \"a\"}\n\n{\"status\": \"ok\", ")))
+				.containsExactly(new SourceEvent.Valid(Id.of("a")));
+		assertThat(reader.read(chunk("\"id\": \"b\"}\r\n{\"status\": \"do")))
+				.containsExactly(new SourceEvent.Valid(Id.of("b")));
+		assertThat(reader.read(chunk("ne\"}"))).isEmpty();
+		assertThat(reader.finish()).containsExactly(SourceEvent.DONE);
+		assertThat(reader.finish()).isEmpty();
+	}
+
+	private static DataBuffer chunk(String text) {
+		return DefaultDataBufferFactory.sharedInstance.wrap(text.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,55 @@
+package com.stream.client.infrastructure.parser;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.SourceEvent;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SourceAJsonParserTest {
+
+	private final SourceAJsonParser parser = new SourceAJsonParser();
+
+	@Test
+	void extractsIdRegardlessOfWhitespaceAndFieldOrder() {
+		assertThat(parse("{\"status\": \"ok\", \"id\": \"abc123\"}")).isEqualTo(new SourceEvent.Valid(Id.of("abc123")));
+		assertThat(parse(" {\"id\":\"abc123\",\"status\":\"ok\"}\n")).isEqualTo(new SourceEvent.Valid(Id.of("abc123")));
+		assertThat(parse("{\"seq\": [1, {\"x\": \"}\"}], \"status\" : \"ok\", \"id\" : \"abc123\"}"))
+				.isEqualTo(new SourceEvent.Valid(Id.of("abc123")));
+	}
+
+	@Test
+	void readsHexIdsIntoLongs() {
+		String hex = "00b5a6e056bb791b3c11e5ffb7c7d9f2";
+		SourceEvent.Valid valid = (SourceEvent.Valid) parse("{\"status\": \"ok\", \"id\": \"" + hex + "\"}");
+		assertThat(valid.id().isHex()).isTrue();
+		assertThat(valid.id()).isEqualTo(Id.ofHex(0x00b5a6e056bb791bL, 0x3c11e5ffb7c7d9f2L)).isEqualTo(Id.of(hex));
+		assertThat(valid.id().toString()).isEqualTo(hex);
+		// upper case is not canonical and stays as received
+		assertThat(((SourceEvent.Valid) parse("{\"status\": \"ok\", \"id\": \"" + hex.toUpperCase() + "\"}")).id().isHex()).isFalse();
+	}
+
+	@Test
+	void recognisesControlPayloads() {
+		assertThat(parse("{\"status\": \"done\"}")).isSameAs(SourceEvent.DONE);
+		assertThat(parse("nothing else at the moment")).isSameAs(SourceEvent.EXHAUSTED);
+	}
+
+	@Test
+	void reportsDefectiveRecords() {
+		assertThat(parse("")).isSameAs(SourceAJsonParser.EMPTY);
+		assertThat(parse("garbage")).isSameAs(SourceAJsonParser.NOT_AN_OBJECT);
+		assertThat(parse("{\"status\": \"ok\", \"id\": \"abc")).isSameAs(SourceAJsonParser.MALFORMED);
+		assertThat(parse("{\"status\": \"ok\"} trailing")).isSameAs(SourceAJsonParser.MALFORMED);
+		assertThat(parse("{\"status\": \"ok\"}")).isSameAs(SourceAJsonParser.MISSING_ID);
+		assertThat(parse("{\"status\": \"ok\", \"id\": \"\"}")).isSameAs(SourceAJsonParser.MISSING_ID);
+		assertThat(parse("{\"id\": \"abc123\"}")).isSameAs(SourceAJsonParser.MISSING_STATUS);
+		assertThat(parse("{\"status\": \"broken\", \"id\": \"abc123\"}")).isSameAs(SourceAJsonParser.UNEXPECTED_STATUS);
+	}
+
+	private SourceEvent parse(String payload) {
+		return parser.parse(payload.getBytes(StandardCharsets.UTF_8));
+	}
+}
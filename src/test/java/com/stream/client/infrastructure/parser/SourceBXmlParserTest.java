@@ -0,0 +1,44 @@
+package com.stream.client.infrastructure.parser;
+
+import com.stream.client.domain.model.Id;
+import com.stream.client.domain.model.SourceEvent;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SourceBXmlParserTest {
+
+	private final SourceBXmlParser parser = new SourceBXmlParser();
+
+	@Test
+	void extractsIdFromWellFormedRecords() {
+		assertThat(parse("<?xml version=\"1.0\" encoding=\"UTF-8\"?><msg><id value=\"abc123\"/></msg>"))
+				.isEqualTo(new SourceEvent.Valid(Id.of("abc123")));
+		assertThat(parse("<msg>\n  <!-- note --><id value='abc123' ></id>\n</msg>\n"))
+				.isEqualTo(new SourceEvent.Valid(Id.of("abc123")));
+	}
+
+	@Test
+	void recognisesControlPayloads() {
+		assertThat(parse("<msg><done/></msg>")).isSameAs(SourceEvent.DONE);
+		assertThat(parse("nothing else at the moment")).isSameAs(SourceEvent.EXHAUSTED);
+	}
+
+	@Test
+	void reportsDefectiveRecords() {
+		assertThat(parse("")).isSameAs(SourceBXmlParser.EMPTY);
+		assertThat(parse("garbage")).isSameAs(SourceBXmlParser.NOT_XML);
+		assertThat(parse("<msg><id value=\"abc123\"/>")).isSameAs(SourceBXmlParser.MALFORMED);
+		assertThat(parse("<msg><id value=\"abc123\"/></msx>")).isSameAs(SourceBXmlParser.MALFORMED);
+		assertThat(parse("<msg><id value=\"abc")).isSameAs(SourceBXmlParser.MALFORMED);
+		assertThat(parse("<msg/><msg/>")).isSameAs(SourceBXmlParser.MALFORMED);
+		assertThat(parse("<msg><id/></msg>")).isSameAs(SourceBXmlParser.MISSING_ID);
+		assertThat(parse("<msg><id value=\"abc123\"/><done/></msg>")).isSameAs(SourceBXmlParser.AMBIGUOUS);
+	}
+
+	private SourceEvent parse(String payload) {
+		return parser.parse(payload.getBytes(StandardCharsets.UTF_8));
+	}
+}